@@ -0,0 +1,17 @@
+package com.reactivespring.benchmarks;
+
+import ch.qos.logback.core.OutputStreamAppender;
+import java.io.OutputStream;
+
+/**
+ * Encodes every event like a console or file appender would, then drops the bytes, so logging on a
+ * benchmarked path is paid for without the run depending on disk or terminal speed.
+ */
+public class DiscardingAppender<E> extends OutputStreamAppender<E> {
+
+  @Override
+  public void start() {
+    setOutputStream(OutputStream.nullOutputStream());
+    super.start();
+  }
+}
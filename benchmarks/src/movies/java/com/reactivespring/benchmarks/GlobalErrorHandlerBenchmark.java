@@ -0,0 +1,64 @@
+package com.reactivespring.benchmarks;
+
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.globalerrorhandler.GlobalErrorHandler;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error responses from movies-service's GlobalErrorHandler, including creating the exception and the
+ * ERROR log line, against a plain ok response. JMH call stacks are shallow, so the stack trace part
+ * of the cost is lower here than under a real WebFlux request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalErrorHandlerBenchmark {
+
+  GlobalErrorHandler globalErrorHandler;
+  CircuitBreaker circuitBreaker;
+
+  @Setup
+  public void setUp() {
+    globalErrorHandler = new GlobalErrorHandler();
+    circuitBreaker = CircuitBreaker.ofDefaults("benchmark");
+    circuitBreaker.transitionToOpenState();
+  }
+
+  @Benchmark
+  public ResponseEntity<String> okResponse() {
+    return ResponseEntity.ok("There is no MovieInfo available for the passed in id: abc");
+  }
+
+  @Benchmark
+  public ResponseEntity<String> clientException() {
+    return globalErrorHandler.handleClientException(
+            new MoviesInfoClientException("There is no MovieInfo available for the passed in id: abc", 404));
+  }
+
+  @Benchmark
+  public ResponseEntity<String> rejectedCall() {
+    return globalErrorHandler.handleRejectedCall(
+            CallNotPermittedException.createCallNotPermittedException(circuitBreaker));
+  }
+
+  @Benchmark
+  public ResponseEntity<String> runtimeException() {
+    return globalErrorHandler.handleRuntimeException(new IllegalStateException("Unexpected failure"));
+  }
+}
@@ -0,0 +1,86 @@
+package com.reactivespring.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response encoding with the ObjectMapper settings Spring Boot applies to the WebFlux codecs,
+ * through a type-bound ObjectWriter as Jackson2JsonEncoder uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonEncodingBenchmark {
+
+  ObjectWriter movieInfoWriter;
+  ObjectWriter reviewWriter;
+  MovieInfo movieInfo;
+  Review review;
+
+  @State(Scope.Benchmark)
+  public static class MovieState {
+
+    @Param({"10", "100"})
+    int reviews;
+
+    ObjectWriter movieWriter;
+    Movie movie;
+
+    @Setup
+    public void setUp() {
+      movieWriter = objectMapper().writerFor(Movie.class);
+      movie = MovieFixtures.movie("1", reviews);
+    }
+  }
+
+  static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+  }
+
+  @Setup
+  public void setUp() {
+    var objectMapper = objectMapper();
+    movieInfoWriter = objectMapper.writerFor(MovieInfo.class);
+    reviewWriter = objectMapper.writerFor(Review.class);
+    movieInfo = MovieFixtures.movieInfo("1");
+    review = MovieFixtures.review("1", 1);
+  }
+
+  @Benchmark
+  public byte[] encodeMovieInfo() throws JsonProcessingException {
+    return movieInfoWriter.writeValueAsBytes(movieInfo);
+  }
+
+  @Benchmark
+  public byte[] encodeReview() throws JsonProcessingException {
+    return reviewWriter.writeValueAsBytes(review);
+  }
+
+  @Benchmark
+  public byte[] encodeMovie(MovieState state) throws JsonProcessingException {
+    return state.movieWriter.writeValueAsBytes(state.movie);
+  }
+}
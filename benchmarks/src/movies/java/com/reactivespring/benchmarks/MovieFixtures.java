@@ -0,0 +1,35 @@
+package com.reactivespring.benchmarks;
+
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.Review;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+final class MovieFixtures {
+
+  private MovieFixtures() {
+  }
+
+  static MovieInfo movieInfo(String movieInfoId) {
+    return new MovieInfo(movieInfoId, "Batman Begins", 2005,
+            List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+  }
+
+  static Review review(String movieInfoId, int index) {
+    return new Review(Integer.toString(index), Long.valueOf(movieInfoId),
+            "Awesome Movie, review number " + index, 7.5 + (index % 3) * 0.5);
+  }
+
+  static List<Review> reviews(String movieInfoId, int count) {
+    return IntStream.range(0, count)
+            .mapToObj(index -> review(movieInfoId, index))
+            .collect(Collectors.toList());
+  }
+
+  static Movie movie(String movieInfoId, int reviewCount) {
+    return new Movie(movieInfo(movieInfoId), reviews(movieInfoId, reviewCount));
+  }
+}
@@ -0,0 +1,165 @@
+package com.reactivespring.benchmarks;
+
+import com.reactivespring.cache.MovieResponseCache;
+import com.reactivespring.cache.MovieResponseCacheProperties;
+import com.reactivespring.client.MoviesInfoRestClient;
+import com.reactivespring.client.ReviewsRestClient;
+import com.reactivespring.config.HedgeProperties;
+import com.reactivespring.config.RetryProperties;
+import com.reactivespring.controller.MoviesController;
+import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieReviews;
+import com.reactivespring.domain.MovieStreamEvent;
+import com.reactivespring.domain.Review;
+import com.reactivespring.trace.SignalTrace;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * MoviesController with the rest clients stubbed to return in-memory results and the response cache
+ * disabled, so only the controller's assembly, subscription and signal overhead is measured. The stubs are
+ * plain subclasses: a Mockito stub captures a stack trace per call, which would be most of what is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoviesControllerChainBenchmark {
+
+  private static final int PAGE_SIZE = 50;
+
+  @Param({"10", "100"})
+  int reviews;
+
+  AnnotationConfigApplicationContext context;
+  MoviesController controller;
+  List<String> pageMovieIds;
+
+  @Setup
+  public void setUp() {
+    var movieInfo = MovieFixtures.movieInfo("1");
+    var reviewList = MovieFixtures.reviews("1", reviews);
+    pageMovieIds = IntStream.rangeClosed(1, PAGE_SIZE)
+            .mapToObj(Integer::toString)
+            .collect(Collectors.toList());
+    var pageMovieInfos = pageMovieIds.stream()
+            .map(MovieFixtures::movieInfo)
+            .collect(Collectors.toList());
+    var pageReviews = pageMovieInfos.stream()
+            .map(info -> new MovieReviews(Long.valueOf(info.getMovieInfoId()),
+                    MovieFixtures.reviews(info.getMovieInfoId(), reviews)))
+            .collect(Collectors.toList());
+
+    var moviesInfoRestClient = new StubMoviesInfoRestClient(movieInfo, pageMovieInfos);
+    var reviewsRestClient = new StubReviewsRestClient(reviewList, pageReviews);
+    var cacheProperties = new MovieResponseCacheProperties();
+    cacheProperties.setEnabled(false);
+
+    // the controller is created by Spring so its @Value settings are bound as in the service
+    context = new AnnotationConfigApplicationContext();
+    context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+            "movies.batch.size", PAGE_SIZE,
+            "movies.batch.concurrency", 4,
+            "movies.summary.defaultReviews", 5,
+            "movies.summary.maxReviews", 50)));
+    context.registerBean(MoviesInfoRestClient.class, () -> moviesInfoRestClient);
+    context.registerBean(ReviewsRestClient.class, () -> reviewsRestClient);
+    context.registerBean(MovieResponseCache.class, () -> new MovieResponseCache(cacheProperties));
+    context.register(MoviesController.class);
+    context.refresh();
+    controller = context.getBean(MoviesController.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Movie aggregateMovie() {
+    return controller.retrieveMovieById("1").block();
+  }
+
+  @Benchmark
+  public MovieStreamEvent streamMovie() {
+    return controller.streamMovieById("1").blockLast();
+  }
+
+  // one page of PAGE_SIZE movies
+  @Benchmark
+  public Movie retrieveMoviesPage() {
+    return controller.retrieveMoviesByIds(pageMovieIds).blockLast();
+  }
+
+  // the resilience settings are the defaults and never used, the overridden calls do not reach them
+  static class StubMoviesInfoRestClient extends MoviesInfoRestClient {
+
+    private final Mono<MovieInfo> movieInfo;
+    private final Flux<MovieInfo> movieInfos;
+
+    StubMoviesInfoRestClient(MovieInfo movieInfo, List<MovieInfo> movieInfos) {
+      super(null, null, CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(), new RetryProperties(),
+              new HedgeProperties(), new SimpleMeterRegistry(), new SignalTrace("off", 0.0, "X-Debug-Trace"));
+      this.movieInfo = Mono.just(movieInfo);
+      this.movieInfos = Flux.fromIterable(movieInfos);
+    }
+
+    @Override
+    public Mono<MovieInfo> retrieveMovieInfo(String movieId) {
+      return movieInfo;
+    }
+
+    @Override
+    public Flux<MovieInfo> retrieveMovieInfos(List<String> movieIds) {
+      return movieInfos;
+    }
+  }
+
+  static class StubReviewsRestClient extends ReviewsRestClient {
+
+    private final Flux<Review> reviews;
+    private final Flux<MovieReviews> groupedReviews;
+
+    StubReviewsRestClient(List<Review> reviews, List<MovieReviews> groupedReviews) {
+      super(null, CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(), new RetryProperties(),
+              new SimpleMeterRegistry(), new SignalTrace("off", 0.0, "X-Debug-Trace"));
+      this.reviews = Flux.fromIterable(reviews);
+      this.groupedReviews = Flux.fromIterable(groupedReviews);
+    }
+
+    @Override
+    public Flux<Review> retrieveReviews(String movieId) {
+      return reviews;
+    }
+
+    @Override
+    public Flux<MovieReviews> retrieveReviewsGroupedByMovie(List<String> movieIds) {
+      return groupedReviews;
+    }
+  }
+}
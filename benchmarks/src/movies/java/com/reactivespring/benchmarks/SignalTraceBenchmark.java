@@ -0,0 +1,72 @@
+package com.reactivespring.benchmarks;
+
+import com.reactivespring.trace.SignalTrace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.util.context.Context;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A per-request chain of {@code elements} signals under the old unconditional {@code .log()} and
+ * under {@link SignalTrace} in each of its states. Log output is fully formatted but discarded
+ * (see logback.xml), so the numbers are a lower bound on what {@code .log()} costs in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignalTraceBenchmark {
+
+  private static final String CATEGORY = "benchmarks.signals";
+
+  @Param({"1", "100"})
+  int elements;
+
+  SignalTrace off;
+  SignalTrace header;
+  Context traced;
+
+  @Setup
+  public void setUp() {
+    off = new SignalTrace("off", 0.0, "X-Debug-Trace");
+    header = new SignalTrace("header", 0.0, "X-Debug-Trace");
+    traced = Context.of(SignalTrace.CONTEXT_KEY, true);
+  }
+
+  @Benchmark
+  public Integer logOperator() {
+    return Flux.range(0, elements).log(CATEGORY).blockLast();
+  }
+
+  @Benchmark
+  public Integer traceOff() {
+    return off.trace(Flux.range(0, elements), CATEGORY).blockLast();
+  }
+
+  @Benchmark
+  public Integer traceHeaderNotRequested() {
+    return header.trace(Flux.range(0, elements), CATEGORY).blockLast();
+  }
+
+  @Benchmark
+  public Integer traceHeaderRequested() {
+    return header.trace(Flux.range(0, elements), CATEGORY).contextWrite(traced).blockLast();
+  }
+
+  @Benchmark
+  public Integer baseline() {
+    return Flux.range(0, elements).blockLast();
+  }
+}
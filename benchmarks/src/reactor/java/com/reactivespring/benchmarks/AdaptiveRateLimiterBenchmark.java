@@ -0,0 +1,74 @@
+package com.reactivespring.benchmarks;
+
+import com.learnreactiveprogramming.operators.AdaptiveRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission cost of {@link AdaptiveRateLimiter} against a naive fixed-rate gate and no limiter.
+ * The rate is far above what one thread can reach, so calls are never delayed and the numbers
+ * cover reserving a slot and feeding the outcome back into the rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdaptiveRateLimiterBenchmark {
+
+  private static final double RATE = 1e12;
+
+  AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(RATE, 1, RATE, Duration.ofSeconds(1));
+  FixedRateGate fixedRate = new FixedRateGate(RATE);
+  Mono<Integer> call = Mono.fromCallable(() -> 1);
+
+  @Benchmark
+  public Integer adaptive() {
+    return limiter.limit(call).block();
+  }
+
+  @Benchmark
+  public Integer fixedRate() {
+    return fixedRate.limit(call).block();
+  }
+
+  @Benchmark
+  public Integer unlimited() {
+    return call.block();
+  }
+
+  // what a hand-rolled limiter typically looks like: reject when called before the next slot
+  static final class FixedRateGate {
+
+    private final long intervalNanos;
+    private long nextSlot;
+
+    FixedRateGate(double rate) {
+      this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    <T> Mono<T> limit(Mono<T> call) {
+      return Mono.defer(() -> admit() ? call : Mono.error(new IllegalStateException("rate limited")));
+    }
+
+    private synchronized boolean admit() {
+      var now = System.nanoTime();
+      if (now < nextSlot) {
+        return false;
+      }
+      nextSlot = now + intervalNanos;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.reactivespring.benchmarks;
+
+import com.learnreactiveprogramming.operators.Batching;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Batching#buffer} against Reactor's {@code bufferTimeout} and plain size-only
+ * {@code buffer}, batching {@code elements} elements into lists of 64. The window never expires
+ * here, so this is the bookkeeping cost per element, timer scheduling for each batch included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchingBenchmark {
+
+  private static final int BATCH_SIZE = 64;
+  private static final Duration MAX_WAIT = Duration.ofSeconds(1);
+
+  @Param({"1000"})
+  int elements;
+
+  @Benchmark
+  public List<Integer> batching() {
+    return Batching.buffer(Flux.range(0, elements), BATCH_SIZE, MAX_WAIT).blockLast();
+  }
+
+  @Benchmark
+  public List<Integer> bufferTimeout() {
+    return Flux.range(0, elements).bufferTimeout(BATCH_SIZE, MAX_WAIT).blockLast();
+  }
+
+  @Benchmark
+  public List<Integer> bufferBySize() {
+    return Flux.range(0, elements).buffer(BATCH_SIZE).blockLast();
+  }
+}
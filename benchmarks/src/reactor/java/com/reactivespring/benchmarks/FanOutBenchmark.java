@@ -0,0 +1,57 @@
+package com.reactivespring.benchmarks;
+
+import com.learnreactiveprogramming.operators.FanOut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An ordered fan-out of {@code inputs} calls through a shared {@link FanOut} against the
+ * per-request {@code flatMapSequential} it wraps and a sequential {@code concatMap}. The calls
+ * complete immediately, so this is the cost of taking and returning a slot, not the latency a
+ * bound on concurrency saves or adds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FanOutBenchmark {
+
+  private static final int CONCURRENCY = 8;
+
+  @Param({"100"})
+  int inputs;
+
+  FanOut fanOut = new FanOut(CONCURRENCY);
+
+  @Benchmark
+  public Integer fanOutOrdered() {
+    return fanOut.ordered(Flux.range(0, inputs), FanOutBenchmark::call).blockLast();
+  }
+
+  @Benchmark
+  public Integer flatMapSequential() {
+    return Flux.range(0, inputs).flatMapSequential(FanOutBenchmark::call, CONCURRENCY).blockLast();
+  }
+
+  @Benchmark
+  public Integer concatMap() {
+    return Flux.range(0, inputs).concatMap(FanOutBenchmark::call).blockLast();
+  }
+
+  private static Mono<Integer> call(int input) {
+    return Mono.fromCallable(() -> input * 2);
+  }
+}
@@ -0,0 +1,78 @@
+package com.reactivespring.benchmarks;
+
+import com.learnreactiveprogramming.operators.KeyedCoalescer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 256 concurrent lookups spread over {@code keys} keys, each load costing a few microseconds of
+ * CPU, with and without {@link KeyedCoalescer}. The loads are held back until every lookup has
+ * subscribed, so all of them overlap as they would behind a slow dependency. With 256 keys
+ * nothing can be coalesced and the difference is the coalescer's own overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyedCoalescerBenchmark {
+
+  private static final int LOOKUPS = 256;
+  private static final int LOAD_TOKENS = 2_000;
+
+  @Param({"8", "256"})
+  int keys;
+
+  KeyedCoalescer<Integer, Integer> coalescer = new KeyedCoalescer<>();
+
+  @Benchmark
+  public int coalesced() {
+    var gate = Sinks.empty();
+    var completed = new AtomicInteger();
+    for (var i = 0; i < LOOKUPS; i++) {
+      coalescer.get(i % keys, key -> load(gate, key)).subscribe(value -> completed.incrementAndGet());
+    }
+    return open(gate, completed);
+  }
+
+  @Benchmark
+  public int uncoalesced() {
+    var gate = Sinks.empty();
+    var completed = new AtomicInteger();
+    for (var i = 0; i < LOOKUPS; i++) {
+      load(gate, i % keys).subscribe(value -> completed.incrementAndGet());
+    }
+    return open(gate, completed);
+  }
+
+  // plain subscribers rather than a flatMap over the lookups: a flatMap with 256 inners completing
+  // at once costs more than the loads and would hide the difference
+  private static int open(Sinks.Empty<Object> gate, AtomicInteger completed) {
+    gate.tryEmitEmpty();
+    if (completed.get() != LOOKUPS) {
+      throw new IllegalStateException(completed.get() + " of " + LOOKUPS + " lookups completed");
+    }
+    return completed.get();
+  }
+
+  private static Mono<Integer> load(Sinks.Empty<Object> gate, Integer key) {
+    return gate.asMono().then(Mono.fromCallable(() -> {
+      Blackhole.consumeCPU(LOAD_TOKENS);
+      return key;
+    }));
+  }
+}
@@ -0,0 +1,73 @@
+package com.reactivespring.benchmarks;
+
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.exception.ReviewNotFoundException;
+import com.reactivespring.exceptionhandler.GlobalErrorHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.web.server.adapter.DefaultServerWebExchange;
+import org.springframework.web.server.i18n.AcceptHeaderLocaleContextResolver;
+import org.springframework.web.server.session.DefaultWebSessionManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * movies-review-service's GlobalErrorHandler writing error responses, including creating the exception
+ * and the ERROR log line with its stack trace, on a fresh exchange per call. The exchange reuses one
+ * codec configurer and session manager as the server does; MockServerWebExchange would build new ones
+ * per call and dominate the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewErrorHandlerBenchmark {
+
+  GlobalErrorHandler globalErrorHandler;
+  ServerCodecConfigurer codecConfigurer;
+  DefaultWebSessionManager sessionManager;
+  AcceptHeaderLocaleContextResolver localeContextResolver;
+
+  @Setup
+  public void setUp() {
+    globalErrorHandler = new GlobalErrorHandler();
+    codecConfigurer = ServerCodecConfigurer.create();
+    sessionManager = new DefaultWebSessionManager();
+    localeContextResolver = new AcceptHeaderLocaleContextResolver();
+  }
+
+  private HttpStatus handle(Throwable ex) {
+    var exchange = new DefaultServerWebExchange(MockServerHttpRequest.post("/v1/reviews").build(),
+            new MockServerHttpResponse(), sessionManager, codecConfigurer, localeContextResolver);
+    globalErrorHandler.handle(exchange, ex).block();
+    return exchange.getResponse().getStatusCode();
+  }
+
+  @Benchmark
+  public HttpStatus reviewDataException() {
+    return handle(new ReviewDataException("rating.movieInfoId: must not be null"));
+  }
+
+  @Benchmark
+  public HttpStatus reviewNotFoundException() {
+    return handle(new ReviewNotFoundException("Review not found for the given Review id abc"));
+  }
+
+  @Benchmark
+  public HttpStatus runtimeException() {
+    return handle(new IllegalStateException("Unexpected failure"));
+  }
+}
@@ -0,0 +1,119 @@
+package com.reactivespring.benchmarks;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.repository.RatingAggregateRepository;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * ReviewHandler.addReview for a valid and an invalid review, with the repositories stubbed and the body
+ * already decoded, so what is measured is the validation in front of the save plus the handler's chain;
+ * next to the bare Bean Validation call it wraps. The stubs are plain proxies: a Mockito stub captures a
+ * stack trace per call, which would be most of what is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewValidationBenchmark {
+
+  AnnotationConfigApplicationContext context;
+  Validator validator;
+  ReviewHandler reviewHandler;
+  Review validReview;
+  ServerRequest validRequest;
+  ServerRequest invalidRequest;
+
+  @Setup
+  public void setUp() {
+    ReviewReactiveRepository reviewRepository = stub(ReviewReactiveRepository.class,
+            "save", arguments -> Mono.just(arguments[0]));
+    RatingAggregateRepository ratingAggregateRepository = stub(RatingAggregateRepository.class,
+            "addRatings", arguments -> Mono.empty());
+
+    // the handler is created by Spring so its validator and @Value settings are injected as in the service
+    context = new AnnotationConfigApplicationContext();
+    context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+    context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+            "reviews.bulk.batchSize", 1000,
+            "reviews.bulk.maxWait", "500ms",
+            "reviews.bulk.concurrency", 4,
+            "reviews.recent.defaultLimit", 10,
+            "reviews.recent.maxLimit", 100)));
+    context.registerBean(ReviewReactiveRepository.class, () -> reviewRepository);
+    context.registerBean(RatingAggregateRepository.class, () -> ratingAggregateRepository);
+    context.registerBean(LocalValidatorFactoryBean.class);
+    context.register(ReviewHandler.class);
+    context.refresh();
+    validator = context.getBean(Validator.class);
+    reviewHandler = context.getBean(ReviewHandler.class);
+
+    validReview = new Review(null, 1L, "Awesome Movie", 9.0);
+    validRequest = MockServerRequest.builder().body(Mono.just(validReview));
+    invalidRequest = MockServerRequest.builder().body(Mono.just(new Review(null, null, "Awesome Movie", -9.0)));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Set<ConstraintViolation<Review>> validatorOnly() {
+    return validator.validate(validReview);
+  }
+
+  @Benchmark
+  public ServerResponse validReview() {
+    return reviewHandler.addReview(validRequest).block();
+  }
+
+  @Benchmark
+  public Object invalidReview() {
+    // resumed rather than thrown by block(), which would add a suppressed exception to every error
+    return reviewHandler.addReview(invalidRequest)
+            .cast(Object.class)
+            .onErrorResume(ReviewDataException.class, Mono::just)
+            .block();
+  }
+
+  // answers the one method addReview calls on a repository; anything else is a mistake in the benchmark
+  private static <T> T stub(Class<T> repository, String method, Function<Object[], Object> answer) {
+    return repository.cast(Proxy.newProxyInstance(repository.getClassLoader(), new Class<?>[]{repository},
+            (proxy, invoked, arguments) -> {
+              if (invoked.getName().equals(method)) {
+                return answer.apply(arguments);
+              }
+              throw new UnsupportedOperationException(invoked.toString());
+            }));
+  }
+}
@@ -0,0 +1,61 @@
+package com.reactivespring.loadtest;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.common.Slf4jNotifier;
+import lombok.extern.slf4j.Slf4j;
+import java.time.Duration;
+
+/**
+ * WireMock stand-ins for movies-info-service and movies-review-service, so movies-service can be
+ * loaded in isolation with a fixed, known downstream latency.
+ */
+@Slf4j
+public class DownstreamStubs implements AutoCloseable {
+
+  static final String MOVIE_INFO = "{\"movieInfoId\":\"1\",\"name\":\"Batman Begins\",\"year\":2005,"
+          + "\"cast\":[\"Christian Bale\",\"Michael Cane\"],\"releaseDate\":\"2005-06-15\"}";
+
+  static final String REVIEWS = "[{\"reviewId\":\"1\",\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0},"
+          + "{\"reviewId\":\"2\",\"movieInfoId\":1,\"comment\":\"Excellent Movie\",\"rating\":8.0}]";
+
+  private final WireMockServer server;
+
+  private DownstreamStubs(WireMockServer server) {
+    this.server = server;
+  }
+
+  public static DownstreamStubs start(int port, Duration delay) {
+    // delayed responses are served asynchronously and the request journal is off, so the stand-ins
+    // hold up under sustained load instead of becoming the bottleneck
+    var server = new WireMockServer(options()
+            .port(port)
+            .containerThreads(100)
+            .asynchronousResponseEnabled(true)
+            .asynchronousResponseThreads(50)
+            .disableRequestJournal()
+            .notifier(new Slf4jNotifier(false)));
+    server.start();
+    var delayMillis = (int) delay.toMillis();
+    server.stubFor(get(urlPathMatching("/v1/movieinfos/[^/]+"))
+            .willReturn(okJson(MOVIE_INFO).withFixedDelay(delayMillis)));
+    server.stubFor(get(urlPathEqualTo("/v1/reviews"))
+            .willReturn(okJson(REVIEWS).withFixedDelay(delayMillis)));
+    log.info("Downstream stand-ins on port {} with {}ms latency", port, delayMillis);
+    return new DownstreamStubs(server);
+  }
+
+  public String baseUrl() {
+    return server.baseUrl();
+  }
+
+  @Override
+  public void close() {
+    server.stop();
+  }
+}
@@ -0,0 +1,45 @@
+package com.reactivespring.loadtest;
+
+import de.flapdoodle.embed.mongo.MongodExecutable;
+import de.flapdoodle.embed.mongo.MongodStarter;
+import de.flapdoodle.embed.mongo.config.MongodConfig;
+import de.flapdoodle.embed.mongo.config.Net;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.process.runtime.Network;
+import lombok.extern.slf4j.Slf4j;
+import java.io.IOException;
+
+/**
+ * A throwaway mongod for the services under test, the same flapdoodle distribution their tests use.
+ */
+@Slf4j
+public class EmbeddedMongo implements AutoCloseable {
+
+  private final MongodExecutable executable;
+  private final int port;
+
+  private EmbeddedMongo(MongodExecutable executable, int port) {
+    this.executable = executable;
+    this.port = port;
+  }
+
+  public static EmbeddedMongo start(int port) throws IOException {
+    var config = MongodConfig.builder()
+            .version(Version.Main.V4_0)
+            .net(new Net(port, Network.localhostIsIPv6()))
+            .build();
+    var executable = MongodStarter.getDefaultInstance().prepare(config);
+    executable.start();
+    log.info("Embedded Mongo listening on port {}", port);
+    return new EmbeddedMongo(executable, port);
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  @Override
+  public void close() {
+    executable.stop();
+  }
+}
@@ -0,0 +1,216 @@
+package com.reactivespring.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Boots movies-info-service, movies-review-service and movies-service against an embedded Mongo
+ * (and optionally WireMock stand-ins for the downstream calls), seeds data, drives the three read
+ * endpoints with open-model arrivals and writes throughput and latency percentiles to
+ * {@code <output>/results.json}, with one {@code .hgrm} percentile distribution per scenario.
+ */
+@Slf4j
+public class LoadTest {
+
+  private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+  public static void main(String[] args) throws Exception {
+    var config = LoadTestConfig.fromSystemProperties();
+    var logDir = Files.createDirectories(config.getOutput().resolve("logs"));
+    Deque<AutoCloseable> resources = new ArrayDeque<>();
+    var provider = ConnectionProvider.builder("loadtest")
+            .maxConnections(config.getMaxConnections())
+            .pendingAcquireMaxCount(-1)
+            .build();
+    try {
+      var webClient = WebClient.builder()
+              .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+              .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+              .build();
+
+      var mongo = register(resources, EmbeddedMongo.start(freePort()));
+      var mongoProperties = new LinkedHashMap<String, String>();
+      mongoProperties.put("spring.data.mongodb.host", "localhost");
+      mongoProperties.put("spring.data.mongodb.port", String.valueOf(mongo.getPort()));
+      mongoProperties.put("spring.data.mongodb.database", "loadtest");
+
+      var moviesInfoService = register(resources, startService(config, "movies-info-service",
+              "com.reactivespring.MoviesInfoServiceApplication", mongoProperties, logDir));
+      var moviesReviewService = register(resources, startService(config, "movies-review-service",
+              "com.reactivespring.MoviesReviewServiceApplication", mongoProperties, logDir));
+
+      var moviesInfoUrl = moviesInfoService.baseUrl();
+      var reviewsUrl = moviesReviewService.baseUrl();
+      if (config.getDownstream() == LoadTestConfig.Downstream.WIREMOCK) {
+        var stubs = register(resources, DownstreamStubs.start(freePort(), config.getStubDelay()));
+        moviesInfoUrl = stubs.baseUrl();
+        reviewsUrl = stubs.baseUrl();
+      }
+      var restClient = new LinkedHashMap<String, String>();
+      restClient.put("restClient.moviesInfoUrl", moviesInfoUrl + "/v1/movieinfos");
+      restClient.put("restClient.reviewsUrl", reviewsUrl + "/v1/reviews");
+      var moviesService = register(resources, startService(config, "movies-service",
+              "com.reactivespring.MoviesServiceApplication", restClient, logDir));
+
+      for (var service : List.of(moviesInfoService, moviesReviewService, moviesService)) {
+        service.awaitHealthy(webClient, STARTUP_TIMEOUT);
+      }
+      seed(webClient, config, moviesInfoService.baseUrl(), moviesReviewService.baseUrl());
+
+      var runner = new OpenModelRunner(config.getWarmup(), config.getDuration(), config.getTimeout(),
+              config.getMaxInFlight());
+      var results = Flux.fromIterable(scenarios(webClient, config, moviesService, moviesInfoService, moviesReviewService))
+              .flatMap(runner::run)
+              .collectList()
+              .block();
+      writeReport(config, results);
+    } finally {
+      while (!resources.isEmpty()) {
+        try {
+          resources.pop().close();
+        } catch (Exception e) {
+          log.warn("Failed to shut down a load test resource", e);
+        }
+      }
+      provider.dispose();
+    }
+  }
+
+  private static ServiceProcess startService(LoadTestConfig config, String name, String mainClass,
+                                             Map<String, String> properties, Path logDir) throws IOException {
+    // -Ploadtest.service.<name>.<property> wins over the defaults set here
+    var merged = new LinkedHashMap<>(properties);
+    merged.putAll(config.serviceProperties(name));
+    return ServiceProcess.start(name, mainClass, config.classpath(name), freePort(), merged, logDir);
+  }
+
+  private static List<Scenario> scenarios(WebClient webClient, LoadTestConfig config, ServiceProcess moviesService,
+                                          ServiceProcess moviesInfoService, ServiceProcess moviesReviewService) {
+    var movies = config.getSeedMovies();
+    var scenarios = new ArrayList<Scenario>();
+    addScenario(scenarios, config, "movies", "/v1/movies/{id}",
+            index -> status(webClient, moviesService.baseUrl() + "/v1/movies/{id}", randomMovie(movies)));
+    addScenario(scenarios, config, "movieinfos", "/v1/movieinfos",
+            index -> status(webClient, moviesInfoService.baseUrl() + "/v1/movieinfos"));
+    addScenario(scenarios, config, "reviews", "/v1/reviews?movieInfoId={id}",
+            index -> status(webClient, moviesReviewService.baseUrl() + "/v1/reviews?movieInfoId={id}", randomMovie(movies)));
+    return scenarios;
+  }
+
+  private static void addScenario(List<Scenario> scenarios, LoadTestConfig config, String name, String path,
+                                  LongFunction<Mono<Integer>> request) {
+    var rate = config.getRates().get(name);
+    if (rate > 0) {
+      scenarios.add(new Scenario(name, path, rate, request));
+    }
+  }
+
+  private static int randomMovie(int movies) {
+    return ThreadLocalRandom.current().nextInt(movies) + 1;
+  }
+
+  // the body is read and discarded so the connection is reused, only the status is kept
+  private static Mono<Integer> status(WebClient webClient, String uri, Object... uriVariables) {
+    return webClient.get()
+            .uri(uri, uriVariables)
+            .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()));
+  }
+
+  private static void seed(WebClient webClient, LoadTestConfig config, String moviesInfoUrl, String reviewsUrl) {
+    var movies = config.getSeedMovies();
+    var movieInfos = Flux.range(1, movies)
+            .map(id -> Map.<String, Object>of(
+                    "movieInfoId", String.valueOf(id),
+                    "name", "Movie " + id,
+                    "year", 1990 + id % 30,
+                    "cast", List.of("Actor " + id, "Actor " + (id + 1)),
+                    "releaseDate", (1990 + id % 30) + "-06-15"));
+    var reviews = Flux.range(0, movies * config.getSeedReviewsPerMovie())
+            .map(index -> Map.<String, Object>of(
+                    "movieInfoId", (long) (index % movies + 1),
+                    "comment", "Review " + index,
+                    "rating", (double) (index % 10)));
+
+    log.info("Seeding {} movie infos and {} reviews", movies, movies * config.getSeedReviewsPerMovie());
+    var infoReport = bulkPost(webClient, moviesInfoUrl + "/v1/movieinfos/bulk", movieInfos);
+    var reviewReport = bulkPost(webClient, reviewsUrl + "/v1/reviews/bulk", reviews);
+    log.info("Seeded movie infos: {}, reviews: {}", infoReport, reviewReport);
+  }
+
+  private static String bulkPost(WebClient webClient, String uri, Flux<Map<String, Object>> documents) {
+    return webClient.post()
+            .uri(uri)
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(documents, new ParameterizedTypeReference<Map<String, Object>>() {})
+            .retrieve()
+            .bodyToMono(String.class)
+            .block(STARTUP_TIMEOUT);
+  }
+
+  private static void writeReport(LoadTestConfig config, List<ScenarioResult> results) throws IOException {
+    var output = Files.createDirectories(config.getOutput());
+    var settings = new LinkedHashMap<String, Object>();
+    settings.put("warmupSeconds", config.getWarmup().toMillis() / 1000.0);
+    settings.put("durationSeconds", config.getDuration().toMillis() / 1000.0);
+    settings.put("timeoutMillis", config.getTimeout().toMillis());
+    settings.put("maxInFlight", config.getMaxInFlight());
+    settings.put("maxConnections", config.getMaxConnections());
+    settings.put("downstream", config.getDownstream().name().toLowerCase());
+    settings.put("seedMovies", config.getSeedMovies());
+    settings.put("seedReviewsPerMovie", config.getSeedReviewsPerMovie());
+
+    var report = new LinkedHashMap<String, Object>();
+    report.put("timestamp", Instant.now().toString());
+    report.put("settings", settings);
+    report.put("scenarios", results.stream().map(ScenarioResult::toReport).collect(Collectors.toList()));
+
+    var resultsFile = output.resolve("results.json");
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(resultsFile.toFile(), report);
+    for (var result : results) {
+      try (var out = new PrintStream(output.resolve(result.getName() + ".hgrm").toFile())) {
+        result.writePercentileDistribution(out);
+      }
+      var latency = result.getLatency();
+      log.info("{}: {} responses, p50 {}ms, p99 {}ms, max {}ms", result.getName(), latency.getTotalCount(),
+              latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+              latency.getMaxValue() / 1000.0);
+    }
+    log.info("Report written to {}", resultsFile);
+  }
+
+  private static <T extends AutoCloseable> T register(Deque<AutoCloseable> resources, T resource) {
+    resources.push(resource);
+    return resource;
+  }
+
+  private static int freePort() throws IOException {
+    try (var socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
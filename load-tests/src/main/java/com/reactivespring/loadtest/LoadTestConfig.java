@@ -0,0 +1,100 @@
+package com.reactivespring.loadtest;
+
+import lombok.Getter;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties (the Gradle task
+ * forwards {@code -Ploadtest.*}). Durations take an ms, s or m suffix.
+ *
+ * <ul>
+ *   <li>{@code loadtest.rate.<scenario>}: arrivals per second for movies, movieinfos and reviews, 0 skips it</li>
+ *   <li>{@code loadtest.warmup}, {@code loadtest.duration}: unrecorded warmup, then the measured window</li>
+ *   <li>{@code loadtest.timeout}, {@code loadtest.maxInFlight}, {@code loadtest.maxConnections}: client limits</li>
+ *   <li>{@code loadtest.downstream}: services (movies-service calls the real services) or wiremock</li>
+ *   <li>{@code loadtest.stubDelay}: fixed latency of the WireMock stand-ins</li>
+ *   <li>{@code loadtest.seed.movies}, {@code loadtest.seed.reviewsPerMovie}: data loaded before the run</li>
+ *   <li>{@code loadtest.service.<service>.<property>}: passed to that service as --property</li>
+ * </ul>
+ */
+@Getter
+public class LoadTestConfig {
+
+  public enum Downstream { SERVICES, WIREMOCK }
+
+  private static final String PREFIX = "loadtest.";
+
+  private final Map<String, Double> rates = new LinkedHashMap<>();
+  private final Duration warmup;
+  private final Duration duration;
+  private final Duration timeout;
+  private final int maxInFlight;
+  private final int maxConnections;
+  private final Downstream downstream;
+  private final Duration stubDelay;
+  private final int seedMovies;
+  private final int seedReviewsPerMovie;
+  private final Path output;
+  private final Properties properties;
+
+  LoadTestConfig(Properties properties) {
+    this.properties = properties;
+    for (var scenario : new String[]{"movies", "movieinfos", "reviews"}) {
+      rates.put(scenario, Double.parseDouble(get("rate." + scenario, "50")));
+    }
+    this.warmup = parseDuration(get("warmup", "10s"));
+    this.duration = parseDuration(get("duration", "60s"));
+    this.timeout = parseDuration(get("timeout", "5s"));
+    this.maxInFlight = Integer.parseInt(get("maxInFlight", "1000"));
+    this.maxConnections = Integer.parseInt(get("maxConnections", "500"));
+    this.downstream = Downstream.valueOf(get("downstream", "services").toUpperCase());
+    this.stubDelay = parseDuration(get("stubDelay", "20ms"));
+    this.seedMovies = Integer.parseInt(get("seed.movies", "500"));
+    this.seedReviewsPerMovie = Integer.parseInt(get("seed.reviewsPerMovie", "10"));
+    this.output = Path.of(get("output", "build/reports/loadtest"));
+  }
+
+  public static LoadTestConfig fromSystemProperties() {
+    return new LoadTestConfig(System.getProperties());
+  }
+
+  public String classpath(String service) {
+    var classpath = properties.getProperty(PREFIX + "classpath." + service);
+    if (classpath == null) {
+      throw new IllegalStateException("No classpath for " + service + ", run through the loadTest Gradle task");
+    }
+    return classpath;
+  }
+
+  public Map<String, String> serviceProperties(String service) {
+    var prefix = PREFIX + "service." + service + ".";
+    var serviceProperties = new LinkedHashMap<String, String>();
+    properties.stringPropertyNames().stream()
+            .filter(name -> name.startsWith(prefix))
+            .sorted()
+            .forEach(name -> serviceProperties.put(name.substring(prefix.length()), properties.getProperty(name)));
+    return serviceProperties;
+  }
+
+  private String get(String name, String defaultValue) {
+    return properties.getProperty(PREFIX + name, defaultValue);
+  }
+
+  static Duration parseDuration(String value) {
+    var text = value.trim();
+    if (text.endsWith("ms")) {
+      return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+    }
+    if (text.endsWith("s")) {
+      return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+    }
+    if (text.endsWith("m")) {
+      return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+    }
+    throw new IllegalArgumentException("Duration needs an ms, s or m suffix: " + value);
+  }
+}
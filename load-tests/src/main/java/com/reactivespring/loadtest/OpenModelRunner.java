@@ -0,0 +1,79 @@
+package com.reactivespring.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a scenario as an open workload: requests are sent on a fixed arrival schedule whether or
+ * not earlier ones have completed, the way independent users arrive, instead of a closed loop of
+ * virtual users that slows down together with the system under test.
+ */
+@Slf4j
+public class OpenModelRunner {
+
+  private final Duration warmup;
+  private final Duration duration;
+  private final Duration timeout;
+  private final int maxInFlight;
+
+  public OpenModelRunner(Duration warmup, Duration duration, Duration timeout, int maxInFlight) {
+    this.warmup = warmup;
+    this.duration = duration;
+    this.timeout = timeout;
+    this.maxInFlight = maxInFlight;
+  }
+
+  public Mono<ScenarioResult> run(Scenario scenario) {
+    return Mono.defer(() -> {
+      var periodNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / scenario.getRate()));
+      var warmupArrivals = warmup.toNanos() / periodNanos;
+      var arrivals = warmupArrivals + duration.toNanos() / periodNanos;
+      var result = new ScenarioResult(scenario, duration);
+      // the schedule is anchored on the ticks themselves rather than on subscription, which can run
+      // ahead while the timer thread spins up; no tick fires early, so the earliest origin they
+      // imply is the closest to the real one
+      var origin = new AtomicLong(Long.MAX_VALUE);
+      log.info("{}: {} requests/s for {} after {} warmup", scenario.getName(), scenario.getRate(), duration, warmup);
+
+      // interval ticks at a fixed rate and catches up after a stall, so the schedule does not drift
+      return Flux.interval(Duration.ZERO, Duration.ofNanos(periodNanos))
+              .take(arrivals)
+              .doOnNext(index -> {
+                origin.accumulateAndGet(System.nanoTime() - index * periodNanos, Math::min);
+                if (index >= warmupArrivals) {
+                  result.recordArrival();
+                }
+              })
+              .onBackpressureDrop(index -> {
+                if (index >= warmupArrivals) {
+                  result.recordDropped();
+                }
+              })
+              .flatMap(index -> send(scenario, index, origin.get() + index * periodNanos, index >= warmupArrivals, result),
+                      maxInFlight)
+              .then(Mono.fromSupplier(() -> result))
+              .doOnNext(done -> log.info("{}: done", scenario.getName()));
+    });
+  }
+
+  private Mono<Void> send(Scenario scenario, long index, long intendedStart, boolean measured, ScenarioResult result) {
+    return scenario.getRequest().apply(index)
+            .timeout(timeout)
+            .doOnNext(status -> {
+              if (measured) {
+                result.recordResponse(status, System.nanoTime() - intendedStart);
+              }
+            })
+            .onErrorResume(ex -> {
+              if (measured) {
+                result.recordError(ex);
+              }
+              return Mono.empty();
+            })
+            .then();
+  }
+}
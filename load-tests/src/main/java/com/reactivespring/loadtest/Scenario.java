@@ -0,0 +1,19 @@
+package com.reactivespring.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import reactor.core.publisher.Mono;
+import java.util.function.LongFunction;
+
+@Getter
+@AllArgsConstructor
+public class Scenario {
+
+  private final String name;
+  // the endpoint under load, for the report
+  private final String path;
+  // arrivals per second, independent of how fast responses come back
+  private final double rate;
+  // sends the n-th request and emits the response status once the body has been read
+  private final LongFunction<Mono<Integer>> request;
+}
@@ -0,0 +1,112 @@
+package com.reactivespring.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * What happened to the arrivals of one scenario inside the measured window. Latency runs from the
+ * intended send time, so requests held back by a saturated client count their wait as well.
+ */
+public class ScenarioResult {
+
+  private final Scenario scenario;
+  private final Duration duration;
+  // microseconds, auto-resizing so a pathological outlier is recorded rather than rejected
+  private final Histogram latency = new ConcurrentHistogram(3);
+  private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+  private final LongAdder arrivals = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  public ScenarioResult(Scenario scenario, Duration duration) {
+    this.scenario = scenario;
+    this.duration = duration;
+  }
+
+  void recordArrival() {
+    arrivals.increment();
+  }
+
+  void recordResponse(int status, long latencyNanos) {
+    latency.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    statuses.computeIfAbsent(status / 100 + "xx", key -> new LongAdder()).increment();
+  }
+
+  void recordError(Throwable ex) {
+    if (ex instanceof TimeoutException) {
+      timeouts.increment();
+    } else {
+      errors.increment();
+    }
+  }
+
+  // the arrival found maxInFlight requests outstanding and was never sent
+  void recordDropped() {
+    dropped.increment();
+  }
+
+  public String getName() {
+    return scenario.getName();
+  }
+
+  public Histogram getLatency() {
+    return latency;
+  }
+
+  public Map<String, Object> toReport() {
+    var seconds = duration.toMillis() / 1000.0;
+    var report = new LinkedHashMap<String, Object>();
+    report.put("name", scenario.getName());
+    report.put("path", scenario.getPath());
+    report.put("targetRate", scenario.getRate());
+    report.put("arrivalRate", arrivals.sum() / seconds);
+    report.put("throughput", latency.getTotalCount() / seconds);
+    report.put("successThroughput", statuses.getOrDefault("2xx", new LongAdder()).sum() / seconds);
+    report.put("responses", latency.getTotalCount());
+    var statusCounts = new TreeMap<String, Long>();
+    statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+    report.put("statuses", statusCounts);
+    report.put("errors", errors.sum());
+    report.put("timeouts", timeouts.sum());
+    report.put("dropped", dropped.sum());
+    report.put("latencyMillis", latencyMillis());
+    report.put("hdrHistogram", encodedHistogram());
+    return report;
+  }
+
+  private Map<String, Double> latencyMillis() {
+    var percentiles = new LinkedHashMap<String, Double>();
+    percentiles.put("min", latency.getMinValue() / 1000.0);
+    percentiles.put("mean", latency.getMean() / 1000.0);
+    for (var percentile : new double[]{50, 90, 95, 99, 99.9, 99.99}) {
+      var key = "p" + (percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile));
+      percentiles.put(key, latency.getValueAtPercentile(percentile) / 1000.0);
+    }
+    percentiles.put("max", latency.getMaxValue() / 1000.0);
+    return percentiles;
+  }
+
+  // the full histogram in HdrHistogram's compressed format, so runs can be merged or re-plotted later
+  private String encodedHistogram() {
+    var buffer = ByteBuffer.allocate(latency.getNeededByteBufferCapacity());
+    var length = latency.encodeIntoCompressedByteBuffer(buffer);
+    return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+  }
+
+  public void writePercentileDistribution(PrintStream out) {
+    latency.outputPercentileDistribution(out, 1000.0);
+  }
+}
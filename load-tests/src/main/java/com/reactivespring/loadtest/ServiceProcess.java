@@ -0,0 +1,87 @@
+package com.reactivespring.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.util.retry.Retry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A service booted from its runtime classpath in a separate JVM, so the services' overlapping
+ * class names never meet and each gets its own heap and GC, as in production.
+ */
+@Slf4j
+public class ServiceProcess implements AutoCloseable {
+
+  private final String name;
+  private final int port;
+  private final Process process;
+
+  private ServiceProcess(String name, int port, Process process) {
+    this.name = name;
+    this.port = port;
+    this.process = process;
+  }
+
+  public static ServiceProcess start(String name, String mainClass, String classpath, int port,
+                                     Map<String, String> properties, Path logDir) throws IOException {
+    // the classpath goes into an @argfile, it easily exceeds command line limits
+    var argFile = logDir.resolve(name + ".args");
+    Files.writeString(argFile, "-cp \"" + classpath.replace("\\", "\\\\") + "\"");
+
+    List<String> command = new ArrayList<>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.add("@" + argFile);
+    command.add(mainClass);
+    command.add("--server.port=" + port);
+    properties.forEach((key, value) -> command.add("--" + key + "=" + value));
+
+    var logFile = logDir.resolve(name + ".log");
+    log.info("Starting {} on port {}, output in {}", name, port, logFile);
+    var process = new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(logFile.toFile())
+            .start();
+    return new ServiceProcess(name, port, process);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String baseUrl() {
+    return "http://localhost:" + port;
+  }
+
+  public void awaitHealthy(WebClient webClient, Duration timeout) {
+    webClient.get()
+            .uri(baseUrl() + "/actuator/health")
+            .retrieve()
+            .toBodilessEntity()
+            .retryWhen(Retry.fixedDelay(Long.MAX_VALUE, Duration.ofMillis(500))
+                    .filter(ex -> process.isAlive()))
+            .doOnError(ex -> log.error("{} failed to start, exit code {}", name,
+                    process.isAlive() ? "n/a" : process.exitValue()))
+            .block(timeout);
+    log.info("{} is up at {}", name, baseUrl());
+  }
+
+  @Override
+  public void close() {
+    process.destroy();
+    try {
+      if (!process.waitFor(15, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+      }
+    } catch (InterruptedException e) {
+      process.destroyForcibly();
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.reactivespring.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+class OpenModelRunnerTest {
+
+  @Test
+  void run_keepsArrivalRateAndRecordsOnlyMeasuredWindow() {
+    var sent = new AtomicLong();
+    var scenario = new Scenario("fast", "/fast", 200, index -> {
+      sent.incrementAndGet();
+      return Mono.just(index % 10 == 0 ? 500 : 200).delayElement(Duration.ofMillis(5));
+    });
+    var runner = new OpenModelRunner(Duration.ofMillis(200), Duration.ofMillis(500), Duration.ofSeconds(1), 100);
+
+    StepVerifier.create(runner.run(scenario))
+            .assertNext(result -> {
+              var report = result.toReport();
+              // 0.7s at 200/s, of which the last 0.5s are measured
+              assertEquals(140, sent.get());
+              assertEquals(100L, report.get("responses"));
+              assertEquals(Map.of("2xx", 90L, "5xx", 10L), report.get("statuses"));
+              assertEquals(200.0, (double) report.get("arrivalRate"), 0.001);
+              assertEquals(0L, report.get("dropped"));
+              assertTrue(result.getLatency().getMinValue() >= 5_000);
+            })
+            .verifyComplete();
+  }
+
+  @Test
+  void run_measuresFromIntendedStartWhenClientIsSaturated() {
+    // one request at a time, each taking 50ms, at 100 arrivals per second: the backlog grows and
+    // the measured latency has to include the time spent waiting to be sent
+    var scenario = new Scenario("slow", "/slow", 100, index -> Mono.just(200).delayElement(Duration.ofMillis(50)));
+    var runner = new OpenModelRunner(Duration.ZERO, Duration.ofMillis(500), Duration.ofSeconds(5), 1);
+
+    StepVerifier.create(runner.run(scenario))
+            .assertNext(result -> {
+              var report = result.toReport();
+              assertTrue((long) report.get("dropped") > 0);
+              assertTrue(result.getLatency().getMaxValue() >= 50_000);
+            })
+            .verifyComplete();
+  }
+
+  @Test
+  void run_countsTimeoutsAndErrors() {
+    var scenario = new Scenario("failing", "/failing", 100, index -> index % 2 == 0
+            ? Mono.never()
+            : Mono.error(new IllegalStateException("connection refused")));
+    var runner = new OpenModelRunner(Duration.ZERO, Duration.ofMillis(200), Duration.ofMillis(50), 100);
+
+    StepVerifier.create(runner.run(scenario))
+            .assertNext(result -> {
+              var report = result.toReport();
+              assertEquals(0L, report.get("responses"));
+              assertEquals(10L, report.get("timeouts"));
+              assertEquals(10L, report.get("errors"));
+            })
+            .verifyComplete();
+  }
+
+  @Test
+  void config_parsesDurationsAndServiceProperties() {
+    var properties = new Properties();
+    properties.setProperty("loadtest.rate.movies", "0");
+    properties.setProperty("loadtest.duration", "2m");
+    properties.setProperty("loadtest.downstream", "wiremock");
+    properties.setProperty("loadtest.service.movies-service.tracing.signals.mode", "sampled");
+    var config = new LoadTestConfig(properties);
+
+    assertEquals(0.0, config.getRates().get("movies"));
+    assertEquals(50.0, config.getRates().get("reviews"));
+    assertEquals(Duration.ofMinutes(2), config.getDuration());
+    assertEquals(Duration.ofMillis(20), config.getStubDelay());
+    assertEquals(LoadTestConfig.Downstream.WIREMOCK, config.getDownstream());
+    assertEquals(Map.of("tracing.signals.mode", "sampled"), config.serviceProperties("movies-service"));
+    assertThrows(IllegalArgumentException.class, () -> LoadTestConfig.parseDuration("10"));
+  }
+}
@@ -1,42 +1,102 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBatchItem;
+import com.reactivespring.domain.MovieInfoBatchRequest;
+import com.reactivespring.domain.MovieInfoBulkReport;
+import com.reactivespring.domain.MovieInfoChange;
 import com.reactivespring.service.MoviesInfoService;
+import com.reactivespring.trace.SignalTrace;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import javax.validation.Valid;
+import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/v1")
 @Slf4j
 public class MoviesInfoController {
 
+  private static final Set<String> PROJECTABLE_FIELDS = Set.of("name", "year", "cast", "releaseDate");
+
   private final MoviesInfoService moviesInfoService;
+  private final SignalTrace signalTrace;
+
+  @Value("${movieinfos.page.defaultSize}")
+  private int defaultPageSize;
+
+  @Value("${movieinfos.page.maxSize}")
+  private int maxPageSize;
+
+  @Value("${movieinfos.export.defaultBatchSize}")
+  private int defaultBatchSize;
 
-  public MoviesInfoController(MoviesInfoService moviesInfoService) {
+  @Value("${movieinfos.export.maxBatchSize}")
+  private int maxBatchSize;
+
+  public MoviesInfoController(MoviesInfoService moviesInfoService, SignalTrace signalTrace) {
     this.moviesInfoService = moviesInfoService;
+    this.signalTrace = signalTrace;
   }
 
   @GetMapping("/movieinfos")
-  public Flux<MovieInfo> getAllMovieInfos(@RequestParam(value = "year", required = false) Integer year) {
-    log.info("Year is: {}", year);
-    if (year != null) {
-      return moviesInfoService.getMovieInfoByYear(year);
+  public Flux<MovieInfo> getAllMovieInfos(@RequestParam(value = "year", required = false) Integer year,
+                                          @RequestParam(value = "after", required = false) String afterId,
+                                          @RequestParam(value = "limit", required = false) Integer limit,
+                                          @RequestParam(value = "fields", required = false) List<String> fields) {
+    log.debug("Year is: {}", year);
+    var pageSize = limit == null ? defaultPageSize : limit;
+    if (pageSize < 1 || pageSize > maxPageSize) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+              "limit must be between 1 and " + maxPageSize);
+    }
+    var projection = fields == null ? List.<String>of() : fields;
+    if (!PROJECTABLE_FIELDS.containsAll(projection)) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+              "fields must be a subset of " + PROJECTABLE_FIELDS);
     }
-    return moviesInfoService.getAllMovieInfos().log();
+    return signalTrace.trace(moviesInfoService.getMovieInfos(year, afterId, pageSize, projection), "movieinfos.page");
+  }
+
+  @GetMapping(value = "/movieinfos",
+          produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+  public Flux<MovieInfo> exportMovieInfos(@RequestParam(value = "year", required = false) Integer year,
+                                          @RequestParam(value = "batchSize", required = false) Integer batchSize) {
+    var cursorBatchSize = batchSize == null ? defaultBatchSize : batchSize;
+    if (cursorBatchSize < 1 || cursorBatchSize > maxBatchSize) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+              "batchSize must be between 1 and " + maxBatchSize);
+    }
+    return moviesInfoService.streamMovieInfos(year, cursorBatchSize);
+  }
+
+  @GetMapping(value = "/movieinfos/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public Flux<ServerSentEvent<MovieInfoChange>> getMovieInfoChanges(
+          @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    return moviesInfoService.getMovieInfoChanges(lastEventId)
+            .map(change -> ServerSentEvent.builder(change)
+                    .id(change.getResumeToken())
+                    .event(change.getType().name().toLowerCase())
+                    .build());
   }
 
   @GetMapping("/movieinfos/{id}")
@@ -46,10 +106,20 @@ public class MoviesInfoController {
             .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
   }
 
+  @PostMapping(value = "/movieinfos/batch-get", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<MovieInfoBatchItem> getMovieInfosByIds(@RequestBody @Valid MovieInfoBatchRequest batchRequest) {
+    return moviesInfoService.getMovieInfosByIds(batchRequest.getIds());
+  }
+
   @PostMapping("/movieinfos")
   @ResponseStatus(HttpStatus.CREATED)
   public Mono<MovieInfo> addMovieInfo(@RequestBody @Valid MovieInfo movieInfo) {
-    return moviesInfoService.addMovieInfo(movieInfo).log();
+    return signalTrace.trace(moviesInfoService.addMovieInfo(movieInfo), "movieinfos.add");
+  }
+
+  @PostMapping(value = "/movieinfos/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public Mono<MovieInfoBulkReport> bulkAddMovieInfos(@RequestBody Flux<MovieInfo> movieInfos) {
+    return moviesInfoService.bulkUpsertMovieInfos(movieInfos);
   }
 
   @PutMapping("/movieinfos/{id}")
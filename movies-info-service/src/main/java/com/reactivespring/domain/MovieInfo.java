@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
@@ -15,11 +17,14 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+// year first so findByYear uses the prefix, _id second so year-filtered pages come back already sorted
+@CompoundIndex(name = "year_id", def = "{'year': 1, '_id': 1}")
 public class MovieInfo {
 
   @Id
   private String movieInfoId;
   @NotBlank(message = "movieInfo.name must be present")
+  @Indexed
   private String name;
   @NotNull
   @Positive(message = "movieInfo.year must be a positive value")
@@ -0,0 +1,23 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoBatchItem {
+
+  private String movieInfoId;
+  private boolean found;
+  private MovieInfo movieInfo;
+
+  public static MovieInfoBatchItem found(MovieInfo movieInfo) {
+    return new MovieInfoBatchItem(movieInfo.getMovieInfoId(), true, movieInfo);
+  }
+
+  public static MovieInfoBatchItem missing(String movieInfoId) {
+    return new MovieInfoBatchItem(movieInfoId, false, null);
+  }
+}
@@ -0,0 +1,18 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoBatchRequest {
+
+  @NotEmpty(message = "movieInfoBatchRequest.ids must not be empty")
+  private List<@NotBlank(message = "movieInfoBatchRequest.ids must not contain blank ids") String> ids;
+
+}
@@ -0,0 +1,35 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoBulkReport {
+
+  private long accepted;
+  private long rejected;
+  private List<RecordError> errors = new ArrayList<>();
+
+  public MovieInfoBulkReport merge(MovieInfoBulkReport other) {
+    accepted += other.accepted;
+    rejected += other.rejected;
+    errors.addAll(other.errors);
+    return this;
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class RecordError {
+
+    // zero-based position of the record in the uploaded stream
+    private long index;
+    private String movieInfoId;
+    private String message;
+  }
+}
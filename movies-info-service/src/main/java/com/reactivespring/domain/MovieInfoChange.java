@@ -0,0 +1,23 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieInfoChange {
+
+  // RESET: the feed could not resume after the given token and changes may have been missed,
+  // so a consumer should drop what it derived from earlier events and reload
+  public enum Type { INSERT, UPDATE, DELETE, RESET }
+
+  // also sent as the SSE id so a reconnecting consumer can pass it back as Last-Event-ID
+  private String resumeToken;
+  private Type type;
+  // null for resets
+  private String movieInfoId;
+  // null for deletes and resets
+  private MovieInfo movieInfo;
+}
@@ -0,0 +1,21 @@
+package com.reactivespring.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.DeleteResult;
+import com.reactivespring.domain.MovieInfo;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.List;
+
+public interface MovieInfoRepositoryCustom {
+
+  Flux<MovieInfo> findPage(Integer year, String afterId, int limit, Collection<String> fields);
+
+  Flux<MovieInfo> streamAll(Integer year, int batchSize);
+
+  Mono<BulkWriteResult> bulkUpsert(List<MovieInfo> movieInfos);
+
+  Mono<DeleteResult> removeById(String id);
+
+}
@@ -0,0 +1,76 @@
+package com.reactivespring.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.DeleteResult;
+import com.reactivespring.domain.MovieInfo;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class MovieInfoRepositoryImpl implements MovieInfoRepositoryCustom {
+
+  private final ReactiveMongoTemplate mongoTemplate;
+
+  public MovieInfoRepositoryImpl(ReactiveMongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public Flux<MovieInfo> findPage(Integer year, String afterId, int limit, Collection<String> fields) {
+    var query = new Query();
+    if (year != null) {
+      query.addCriteria(Criteria.where("year").is(year));
+    }
+    // keyset pagination: resume after the last _id of the previous page instead of skipping
+    if (afterId != null) {
+      query.addCriteria(Criteria.where("movieInfoId").gt(afterId));
+    }
+    query.with(Sort.by("movieInfoId")).limit(limit);
+    fields.forEach(field -> query.fields().include(field));
+    return mongoTemplate.find(query, MovieInfo.class);
+  }
+
+  @Override
+  public Flux<MovieInfo> streamAll(Integer year, int batchSize) {
+    var query = new Query();
+    if (year != null) {
+      query.addCriteria(Criteria.where("year").is(year));
+    }
+    // ordered by _id so a consumer that drops mid-export can resume with the paged endpoint
+    query.with(Sort.by("movieInfoId")).cursorBatchSize(batchSize);
+    return mongoTemplate.find(query, MovieInfo.class);
+  }
+
+  // ReactiveMongoTemplate has no bulk operations, so the converted documents go straight to the driver
+  @Override
+  public Mono<BulkWriteResult> bulkUpsert(List<MovieInfo> movieInfos) {
+    List<WriteModel<Document>> writes = movieInfos.stream()
+            .map(movieInfo -> {
+              var document = new Document();
+              mongoTemplate.getConverter().write(movieInfo, document);
+              return new ReplaceOneModel<>(Filters.eq("_id", document.get("_id")), document,
+                      new ReplaceOptions().upsert(true));
+            })
+            .collect(Collectors.toList());
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(MovieInfo.class))
+            .flatMap(collection -> Mono.from(collection.bulkWrite(writes, new BulkWriteOptions().ordered(false))));
+  }
+
+  // unlike deleteById this reports whether a document was there
+  @Override
+  public Mono<DeleteResult> removeById(String id) {
+    return mongoTemplate.remove(Query.query(Criteria.where("movieInfoId").is(id)), MovieInfo.class);
+  }
+}
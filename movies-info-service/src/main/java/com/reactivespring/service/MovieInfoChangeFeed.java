@@ -0,0 +1,177 @@
+package com.reactivespring.service;
+
+import com.mongodb.client.model.changestream.FullDocument;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoChange;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+@Slf4j
+public class MovieInfoChangeFeed {
+
+  private static final int DETECT_RETRIES = 2;
+  private static final Duration DETECT_BACKOFF = Duration.ofMillis(100);
+  // recognised by Mono.cache as no expiry
+  private static final Duration DETECTED_FOREVER = Duration.ofMillis(Long.MAX_VALUE);
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final Mono<Boolean> changeStreamsAvailable;
+  private final Sinks.Many<MovieInfoChange> localChanges;
+  private final int localReplaySize;
+  // local tokens are <instance>.<sequence>, the sequence restarts with the process
+  private final String localInstance = Long.toHexString(ThreadLocalRandom.current().nextLong());
+  private long localSequence;
+
+  public MovieInfoChangeFeed(ReactiveMongoTemplate mongoTemplate,
+                             @Value("${movieinfos.changes.mode}") String mode,
+                             @Value("${movieinfos.changes.localReplaySize}") int localReplaySize) {
+    this.mongoTemplate = mongoTemplate;
+    this.localChanges = Sinks.many().replay().limit(localReplaySize);
+    this.localReplaySize = localReplaySize;
+    this.changeStreamsAvailable = "auto".equals(mode) ? detectReplicaSet() : Mono.just("changeStream".equals(mode));
+  }
+
+  public Flux<MovieInfoChange> changes(String resumeToken) {
+    return changeStreamsAvailable
+            .flatMapMany(available -> available ? changeStream(resumeToken) : localChanges(resumeToken));
+  }
+
+  public void inserted(MovieInfo movieInfo) {
+    publishLocal(MovieInfoChange.Type.INSERT, movieInfo.getMovieInfoId(), movieInfo);
+  }
+
+  public void updated(MovieInfo movieInfo) {
+    publishLocal(MovieInfoChange.Type.UPDATE, movieInfo.getMovieInfoId(), movieInfo);
+  }
+
+  public void deleted(String movieInfoId) {
+    publishLocal(MovieInfoChange.Type.DELETE, movieInfoId, null);
+  }
+
+  // change streams only exist on replica sets and sharded clusters, a standalone mongod rejects them.
+  // Only an answer is kept: when Mongo cannot be asked, this subscriber is served from the local sink
+  // and the next one asks again, so a transient error does not pin the feed to the sink
+  private Mono<Boolean> detectReplicaSet() {
+    return Mono.defer(() -> mongoTemplate.executeCommand("{ isMaster: 1 }"))
+            .map(reply -> reply.containsKey("setName") || "isdbgrid".equals(reply.getString("msg")))
+            .retryWhen(Retry.backoff(DETECT_RETRIES, DETECT_BACKOFF))
+            .doOnNext(available -> log.info("MovieInfo changes served from {}",
+                    available ? "Mongo change streams" : "the local change sink"))
+            .cache(available -> DETECTED_FOREVER, error -> Duration.ZERO, () -> Duration.ZERO)
+            .onErrorResume(error -> {
+              log.warn("Could not tell whether Mongo supports change streams, serving from the local change sink: {}",
+                      error.getMessage());
+              return Mono.just(false);
+            });
+  }
+
+  private Flux<MovieInfoChange> changeStream(String resumeToken) {
+    var options = ChangeStreamOptions.builder()
+            .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+    if (resumeToken != null) {
+      options.resumeAfter(parseResumeToken(resumeToken));
+    }
+    return mongoTemplate.changeStream(mongoTemplate.getCollectionName(MovieInfo.class), options.build(), MovieInfo.class)
+            .flatMap(event -> Mono.justOrEmpty(toChange(event)));
+  }
+
+  private MovieInfoChange toChange(ChangeStreamEvent<MovieInfo> event) {
+    MovieInfoChange.Type type;
+    switch (event.getOperationType()) {
+      case INSERT:
+        type = MovieInfoChange.Type.INSERT;
+        break;
+      case UPDATE:
+      case REPLACE:
+        type = MovieInfoChange.Type.UPDATE;
+        break;
+      case DELETE:
+        type = MovieInfoChange.Type.DELETE;
+        break;
+      default:
+        return null;
+    }
+    var movieInfoId = idToString(event.getRaw().getDocumentKey().get("_id"));
+    return new MovieInfoChange(formatResumeToken(event.getResumeToken()), type, movieInfoId, event.getBody());
+  }
+
+  private static String idToString(BsonValue id) {
+    return id.isObjectId() ? id.asObjectId().getValue().toHexString() : id.asString().getValue();
+  }
+
+  // the server token is {_data: "<hex>"}; only the hex string goes on the wire unless the server sent something else
+  private static String formatResumeToken(BsonValue resumeToken) {
+    var data = resumeToken.asDocument().get("_data");
+    return data != null && data.isString() ? data.asString().getValue() : resumeToken.asDocument().toJson();
+  }
+
+  private static BsonValue parseResumeToken(String resumeToken) {
+    return resumeToken.startsWith("{")
+            ? BsonDocument.parse(resumeToken)
+            : new BsonDocument("_data", new BsonString(resumeToken));
+  }
+
+  private Flux<MovieInfoChange> localChanges(String resumeToken) {
+    return Flux.defer(() -> {
+      var current = currentLocalSequence();
+      if (resumeToken == null) {
+        return localChangesAfter(current);
+      }
+      // a token from an earlier run or another instance, or one the replay window has moved past, cannot be
+      // resumed without losing changes: say so with a reset and carry on from now
+      var after = parseLocalSequence(resumeToken);
+      if (after < 0 || after > current || current - after > localReplaySize) {
+        log.info("Resume token {} cannot be resumed from the local change sink, sending a reset", resumeToken);
+        return localChangesAfter(current)
+                .startWith(new MovieInfoChange(localToken(current), MovieInfoChange.Type.RESET, null, null));
+      }
+      return localChangesAfter(after);
+    });
+  }
+
+  private Flux<MovieInfoChange> localChangesAfter(long after) {
+    return localChanges.asFlux()
+            .filter(change -> parseLocalSequence(change.getResumeToken()) > after);
+  }
+
+  private synchronized long currentLocalSequence() {
+    return localSequence;
+  }
+
+  private String localToken(long sequence) {
+    return localInstance + "." + sequence;
+  }
+
+  // -1 for anything that is not a token of this instance
+  private long parseLocalSequence(String resumeToken) {
+    var separator = resumeToken.lastIndexOf('.');
+    if (separator < 0 || !localInstance.equals(resumeToken.substring(0, separator))) {
+      return -1L;
+    }
+    try {
+      return Long.parseLong(resumeToken.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      return -1L;
+    }
+  }
+
+  private synchronized void publishLocal(MovieInfoChange.Type type, String movieInfoId, MovieInfo movieInfo) {
+    var change = new MovieInfoChange(localToken(++localSequence), type, movieInfoId, movieInfo);
+    localChanges.tryEmitNext(change);
+  }
+}
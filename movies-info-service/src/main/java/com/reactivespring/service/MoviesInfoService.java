@@ -1,48 +1,192 @@
 package com.reactivespring.service;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBatchItem;
+import com.reactivespring.domain.MovieInfoBulkReport;
+import com.reactivespring.domain.MovieInfoChange;
 import com.reactivespring.repository.MovieInfoRepository;
+import com.reactivespring.trace.MongoSpans;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 public class MoviesInfoService {
 
   private final MovieInfoRepository repository;
+  private final MovieInfoChangeFeed changeFeed;
+  private final Validator validator;
+  private final MongoSpans mongoSpans;
 
-  public MoviesInfoService(MovieInfoRepository repository) {
+  @Value("${movieinfos.bulk.batchSize}")
+  private int bulkBatchSize;
+
+  @Value("${movieinfos.bulk.concurrency}")
+  private int bulkConcurrency;
+
+  public MoviesInfoService(MovieInfoRepository repository, MovieInfoChangeFeed changeFeed, Validator validator,
+                           ObjectProvider<Tracer> tracer) {
     this.repository = repository;
+    this.changeFeed = changeFeed;
+    this.validator = validator;
+    this.mongoSpans = new MongoSpans(tracer.getIfAvailable());
   }
 
   public Mono<MovieInfo> addMovieInfo(MovieInfo movieInfo) {
-    return repository.save(movieInfo);
+    return mongoSpans.mono("save", MovieInfo.class, repository.save(movieInfo))
+            .doOnNext(changeFeed::inserted);
+  }
+
+  public Mono<MovieInfoBulkReport> bulkUpsertMovieInfos(Flux<MovieInfo> movieInfos) {
+    return movieInfos.index()
+            .buffer(bulkBatchSize)
+            .flatMap(this::writeBatch, bulkConcurrency)
+            .reduceWith(MovieInfoBulkReport::new, MovieInfoBulkReport::merge)
+            .map(report -> {
+              // batches complete out of order, report errors in upload order
+              report.getErrors().sort(Comparator.comparingLong(MovieInfoBulkReport.RecordError::getIndex));
+              return report;
+            });
+  }
+
+  private Mono<MovieInfoBulkReport> writeBatch(List<Tuple2<Long, MovieInfo>> batch) {
+    var errors = new ArrayList<MovieInfoBulkReport.RecordError>();
+    var valid = new ArrayList<Tuple2<Long, MovieInfo>>();
+    batch.forEach(record -> {
+      var movieInfo = record.getT2();
+      var messages = validator.validate(movieInfo).stream()
+              .map(ConstraintViolation::getMessage)
+              .collect(Collectors.toCollection(ArrayList::new));
+      // every write is an upsert on the client's id, so uploading the same records again is idempotent;
+      // an id generated here would insert the record a second time on a retry
+      if (movieInfo.getMovieInfoId() == null || movieInfo.getMovieInfoId().isBlank()) {
+        messages.add("movieInfo.movieInfoId must be present");
+      }
+      if (!messages.isEmpty()) {
+        errors.add(new MovieInfoBulkReport.RecordError(record.getT1(), movieInfo.getMovieInfoId(),
+                messages.stream()
+                        .sorted()
+                        .collect(Collectors.joining(", "))));
+        return;
+      }
+      valid.add(record);
+    });
+    if (valid.isEmpty()) {
+      return Mono.just(new MovieInfoBulkReport(0, errors.size(), errors));
+    }
+
+    var movieInfos = valid.stream().map(Tuple2::getT2).collect(Collectors.toList());
+    return mongoSpans.mono("bulkWrite", MovieInfo.class, repository.bulkUpsert(movieInfos))
+            .map(result -> {
+              publishChanges(movieInfos, result, List.of());
+              return new MovieInfoBulkReport(valid.size(), errors.size(), errors);
+            })
+            .onErrorResume(MongoBulkWriteException.class, e -> {
+              // unordered: the rest of the batch was written, only these positions failed
+              e.getWriteErrors().forEach(writeError -> errors.add(new MovieInfoBulkReport.RecordError(
+                      valid.get(writeError.getIndex()).getT1(),
+                      movieInfos.get(writeError.getIndex()).getMovieInfoId(),
+                      writeError.getMessage())));
+              publishChanges(movieInfos, e.getWriteResult(), e.getWriteErrors());
+              var failed = e.getWriteErrors().size();
+              return Mono.just(new MovieInfoBulkReport(valid.size() - failed, errors.size(), errors));
+            })
+            .onErrorResume(e -> {
+              log.error("Bulk write of {} movie infos failed", movieInfos.size(), e);
+              valid.forEach(record -> errors.add(new MovieInfoBulkReport.RecordError(
+                      record.getT1(), record.getT2().getMovieInfoId(), e.getMessage())));
+              return Mono.just(new MovieInfoBulkReport(0, errors.size(), errors));
+            });
+  }
+
+  private void publishChanges(List<MovieInfo> movieInfos, BulkWriteResult result, List<BulkWriteError> writeErrors) {
+    var failed = writeErrors.stream().map(BulkWriteError::getIndex).collect(Collectors.toSet());
+    var upserted = new HashSet<Integer>();
+    result.getUpserts().forEach(upsert -> upserted.add(upsert.getIndex()));
+    for (int i = 0; i < movieInfos.size(); i++) {
+      if (failed.contains(i)) {
+        continue;
+      }
+      if (upserted.contains(i)) {
+        changeFeed.inserted(movieInfos.get(i));
+      } else {
+        changeFeed.updated(movieInfos.get(i));
+      }
+    }
   }
 
   public Flux<MovieInfo> getAllMovieInfos() {
-    return repository.findAll();
+    return mongoSpans.flux("find", MovieInfo.class, repository.findAll());
+  }
+
+  public Flux<MovieInfo> getMovieInfos(Integer year, String afterId, int limit, Collection<String> fields) {
+    return mongoSpans.flux("find", MovieInfo.class, repository.findPage(year, afterId, limit, fields));
+  }
+
+  public Flux<MovieInfo> streamMovieInfos(Integer year, int batchSize) {
+    // cap outstanding demand at one cursor batch so a slow client stalls the cursor instead of filling memory
+    return mongoSpans.flux("find", MovieInfo.class, repository.streamAll(year, batchSize))
+            .limitRate(batchSize);
   }
 
   public Mono<MovieInfo> getMovieInfoById(String id) {
-    return repository.findById(id);
+    return mongoSpans.mono("find", MovieInfo.class, repository.findById(id));
+  }
+
+  public Flux<MovieInfoBatchItem> getMovieInfosByIds(Collection<String> ids) {
+    return Flux.defer(() -> {
+      var missingIds = new LinkedHashSet<>(ids);
+      // a single $in query on _id; whatever is not returned is reported once the cursor is drained
+      return mongoSpans.flux("find", MovieInfo.class, repository.findAllById(List.copyOf(missingIds)))
+              .doOnNext(movieInfo -> missingIds.remove(movieInfo.getMovieInfoId()))
+              .map(MovieInfoBatchItem::found)
+              .concatWith(Flux.defer(() -> Flux.fromIterable(missingIds)
+                      .map(MovieInfoBatchItem::missing)));
+    });
   }
 
   public Mono<MovieInfo> updateMovieInfo(MovieInfo updateMovieInfo, String id) {
 
-    return repository.findById(id).flatMap(movieInfo -> {
+    return mongoSpans.mono("find", MovieInfo.class, repository.findById(id)).flatMap(movieInfo -> {
       movieInfo.setCast(updateMovieInfo.getCast());
       movieInfo.setName(updateMovieInfo.getName());
       movieInfo.setYear(updateMovieInfo.getYear());
       movieInfo.setReleaseDate(updateMovieInfo.getReleaseDate());
-      return repository.save(movieInfo);
-    });
+      return mongoSpans.mono("save", MovieInfo.class, repository.save(movieInfo));
+    }).doOnNext(changeFeed::updated);
   }
 
   public Mono<Void> deleteMovieInfo(String id) {
-    return repository.deleteById(id);
+    // only a delete that removed something goes on the feed, unknown ids must not fill its replay window
+    return mongoSpans.mono("delete", MovieInfo.class, repository.removeById(id))
+            .filter(result -> result.getDeletedCount() > 0)
+            .doOnNext(result -> changeFeed.deleted(id))
+            .then();
+  }
+
+  public Flux<MovieInfoChange> getMovieInfoChanges(String resumeToken) {
+    return changeFeed.changes(resumeToken);
   }
 
   public Flux<MovieInfo> getMovieInfoByYear(Integer year) {
-    return repository.findByYear(year);
+    return mongoSpans.flux("find", MovieInfo.class, repository.findByYear(year));
   }
 }
@@ -0,0 +1,109 @@
+package com.reactivespring.trace;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+
+/**
+ * Per-request reactive signal logging, the switchable replacement for {@code .log()} on hot paths.
+ * A request is traced when it carries the trace header (modes HEADER and SAMPLED) or wins the
+ * sample (mode SAMPLED); the decision travels in the Reactor context.
+ */
+@Component
+@Slf4j
+public class SignalTrace implements WebFilter {
+
+  public enum Mode { OFF, HEADER, SAMPLED }
+
+  public static final String CONTEXT_KEY = SignalTrace.class.getName();
+
+  private final String header;
+  private volatile Mode mode;
+  private volatile double sampleRate;
+
+  public SignalTrace(@Value("${tracing.signals.mode}") String mode,
+                     @Value("${tracing.signals.sampleRate}") double sampleRate,
+                     @Value("${tracing.signals.header}") String header) {
+    this.header = header;
+    update(parseMode(mode), sampleRate);
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  public String getHeader() {
+    return header;
+  }
+
+  public synchronized void update(Mode mode, double sampleRate) {
+    if (sampleRate < 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+    }
+    this.mode = mode;
+    this.sampleRate = sampleRate;
+    log.info("Signal tracing mode {} with sample rate {}", mode, sampleRate);
+  }
+
+  public static Mode parseMode(String mode) {
+    try {
+      return Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown signal trace mode: " + mode);
+    }
+  }
+
+  public <T> Flux<T> trace(Flux<T> source, String category) {
+    // when off the chain is returned untouched, so there is no per-subscription or per-signal cost
+    if (mode == Mode.OFF) {
+      return source;
+    }
+    return source.transformDeferredContextual((flux, context) ->
+            context.getOrDefault(CONTEXT_KEY, false) ? flux.log(category, Level.INFO) : flux);
+  }
+
+  public <T> Mono<T> trace(Mono<T> source, String category) {
+    if (mode == Mode.OFF) {
+      return source;
+    }
+    return source.transformDeferredContextual((mono, context) ->
+            context.getOrDefault(CONTEXT_KEY, false) ? mono.log(category, Level.INFO) : mono);
+  }
+
+  boolean isTraced(ServerHttpRequest request) {
+    switch (mode) {
+      case HEADER:
+        return isRequested(request);
+      case SAMPLED:
+        return isRequested(request) || ThreadLocalRandom.current().nextDouble() < sampleRate;
+      default:
+        return false;
+    }
+  }
+
+  private boolean isRequested(ServerHttpRequest request) {
+    return "true".equalsIgnoreCase(request.getHeaders().getFirst(header));
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+    if (!isTraced(exchange.getRequest())) {
+      return chain.filter(exchange);
+    }
+    return chain.filter(exchange).contextWrite(Context.of(CONTEXT_KEY, true));
+  }
+}
@@ -0,0 +1,38 @@
+package com.reactivespring.trace;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+
+@Component
+@Endpoint(id = "signaltrace")
+public class SignalTraceEndpoint {
+
+  private final SignalTrace signalTrace;
+
+  public SignalTraceEndpoint(SignalTrace signalTrace) {
+    this.signalTrace = signalTrace;
+  }
+
+  @ReadOperation
+  public Map<String, Object> settings() {
+    return Map.of("mode", signalTrace.getMode(),
+            "sampleRate", signalTrace.getSampleRate(),
+            "header", signalTrace.getHeader());
+  }
+
+  @WriteOperation
+  public Map<String, Object> update(@Nullable String mode, @Nullable Double sampleRate) {
+    try {
+      signalTrace.update(mode == null ? signalTrace.getMode() : SignalTrace.parseMode(mode),
+              sampleRate == null ? signalTrace.getSampleRate() : sampleRate);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+    }
+    return settings();
+  }
+}
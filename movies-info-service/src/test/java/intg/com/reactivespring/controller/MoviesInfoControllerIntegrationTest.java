@@ -2,24 +2,45 @@ package com.reactivespring.controller;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import brave.Span;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBatchItem;
+import com.reactivespring.domain.MovieInfoBatchRequest;
+import com.reactivespring.domain.MovieInfoBulkReport;
+import com.reactivespring.domain.MovieInfoChange;
 import com.reactivespring.repository.MovieInfoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.test.StepVerifier;
 import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @AutoConfigureWebTestClient
+@AutoConfigureMetrics
 class MoviesInfoControllerIntegrationTest {
 
   @Autowired
@@ -28,7 +49,14 @@ class MoviesInfoControllerIntegrationTest {
   @Autowired
   WebTestClient webTestClient;
 
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Autowired
+  FinishedSpans finishedSpans;
+
   static String MOVIES_INFO_URL = "/v1/movieinfos";
+  static String TRACE_ID = "463ac35c9f6413ad48485a3953bb6124";
 
   @BeforeEach
   void setUp() {
@@ -76,6 +104,191 @@ class MoviesInfoControllerIntegrationTest {
             .hasSize(3);
   }
 
+  @Test
+  void getAllMovieInfos_pages() {
+    var firstPage = webTestClient.get()
+            .uri(MOVIES_INFO_URL + "?limit=2")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectBodyList(MovieInfo.class)
+            .hasSize(2)
+            .returnResult()
+            .getResponseBody();
+    assertNotNull(firstPage);
+
+    webTestClient.get()
+            .uri(MOVIES_INFO_URL + "?limit=2&after={after}", firstPage.get(1).getMovieInfoId())
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectBodyList(MovieInfo.class)
+            .hasSize(1)
+            .consumeWith(listEntityExchangeResult -> assertFalse(firstPage
+                    .contains(listEntityExchangeResult.getResponseBody().get(0))));
+  }
+
+  @Test
+  void getAllMovieInfos_fields() {
+    webTestClient.get()
+            .uri(MOVIES_INFO_URL + "?year=2012&fields=name")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectBody()
+            .jsonPath("$[0].movieInfoId").isEqualTo("abc")
+            .jsonPath("$[0].name").isEqualTo("Dark Knight Rises")
+            .jsonPath("$[0].year").doesNotExist()
+            .jsonPath("$[0].cast").doesNotExist();
+  }
+
+  @Test
+  void exportMovieInfos_ndjson() {
+    var exportFlux = webTestClient.get()
+            .uri(MOVIES_INFO_URL + "?batchSize=1")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectHeader()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .returnResult(MovieInfo.class)
+            .getResponseBody();
+
+    StepVerifier.create(exportFlux)
+            .expectNextCount(3)
+            .verifyComplete();
+  }
+
+  @Test
+  void exportMovieInfos_eventStream() {
+    var exportFlux = webTestClient.get()
+            .uri(MOVIES_INFO_URL + "?year=2012")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .returnResult(MovieInfo.class)
+            .getResponseBody();
+
+    StepVerifier.create(exportFlux)
+            .assertNext(movieInfo -> assertEquals("abc", movieInfo.getMovieInfoId()))
+            .verifyComplete();
+  }
+
+  @Test
+  void getMovieInfoChanges() {
+    // a token this instance never issued cannot be resumed, the feed says so instead of staying silent
+    var reset = webTestClient.get()
+            .uri(MOVIES_INFO_URL + "/changes")
+            .header("Last-Event-ID", "5000")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<MovieInfoChange>>() {
+            })
+            .getResponseBody()
+            .blockFirst(Duration.ofSeconds(5));
+    assertNotNull(reset);
+    assertEquals("reset", reset.event());
+    assertNotNull(reset.id());
+
+    var movieInfo = new MovieInfo(null, "Batman Begins",
+            2005, List.of("Christian Bale", "Michal Cane"), LocalDate.parse("2005-05-15"));
+    var savedMovieInfo = webTestClient.post()
+            .uri(MOVIES_INFO_URL)
+            .bodyValue(movieInfo)
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectBody(MovieInfo.class)
+            .returnResult()
+            .getResponseBody();
+    assertNotNull(savedMovieInfo);
+    var movieInfoId = savedMovieInfo.getMovieInfoId();
+
+    savedMovieInfo.setYear(2006);
+    webTestClient.put()
+            .uri(MOVIES_INFO_URL + "/{id}", movieInfoId)
+            .bodyValue(savedMovieInfo)
+            .exchange()
+            .expectStatus()
+            .isOk();
+    webTestClient.delete()
+            .uri(MOVIES_INFO_URL + "/{id}", movieInfoId)
+            .exchange()
+            .expectStatus()
+            .isNoContent();
+
+    // embedded Mongo is standalone, so this exercises the local feed; resuming after the reset replays the writes
+    var changesFlux = webTestClient.get()
+            .uri(MOVIES_INFO_URL + "/changes")
+            .header("Last-Event-ID", reset.id())
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<MovieInfoChange>>() {
+            })
+            .getResponseBody()
+            .filter(event -> movieInfoId.equals(event.data().getMovieInfoId()));
+
+    StepVerifier.create(changesFlux)
+            .assertNext(event -> assertEquals("insert", event.event()))
+            .assertNext(event -> {
+              assertEquals("update", event.event());
+              assertEquals(2006, event.data().getMovieInfo().getYear());
+            })
+            .assertNext(event -> assertEquals("delete", event.event()))
+            .thenCancel()
+            .verify();
+  }
+
+  @Test
+  void bulkAddMovieInfos() {
+    var body = "{\"movieInfoId\":\"batman-begins\",\"name\":\"Batman Begins\",\"year\":2005,\"cast\":[\"Christian Bale\"]}\n"
+            + "{\"movieInfoId\":\"tdk\",\"name\":\"\",\"year\":-2008}\n"
+            + "{\"movieInfoId\":\"abc\",\"name\":\"Dark Knight Rises\",\"year\":2013}\n"
+            + "{\"name\":\"The Prestige\",\"year\":2006}\n";
+
+    webTestClient.post()
+            .uri(MOVIES_INFO_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectBody(MovieInfoBulkReport.class)
+            .consumeWith(movieInfoBulkReportEntityExchangeResult -> {
+              var report = movieInfoBulkReportEntityExchangeResult.getResponseBody();
+              assertNotNull(report);
+              assertEquals(2, report.getAccepted());
+              assertEquals(2, report.getRejected());
+              assertEquals(1, report.getErrors().get(0).getIndex());
+              assertEquals("movieInfo.name must be present, movieInfo.year must be a positive value",
+                      report.getErrors().get(0).getMessage());
+              assertEquals(3, report.getErrors().get(1).getIndex());
+              assertEquals("movieInfo.movieInfoId must be present", report.getErrors().get(1).getMessage());
+            });
+
+    StepVerifier.create(repository.findAll())
+            .expectNextCount(4)
+            .verifyComplete();
+    assertEquals(2013, repository.findById("abc").block().getYear());
+
+    // a retried upload upserts the same documents again instead of adding copies
+    webTestClient.post()
+            .uri(MOVIES_INFO_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue(body)
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful();
+
+    StepVerifier.create(repository.findAll())
+            .expectNextCount(4)
+            .verifyComplete();
+  }
+
   @Test
   void getMovieInfoById() {
     String movieInfoId = "abc";
@@ -179,4 +392,106 @@ class MoviesInfoControllerIntegrationTest {
             .expectBodyList(MovieInfo.class)
             .hasSize(1);
   }
-}
\ No newline at end of file
+
+  @Test
+  void getMovieInfosByIds() {
+    webTestClient.post()
+            .uri(MOVIES_INFO_URL + "/batch-get")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(new MovieInfoBatchRequest(List.of("abc", "def", "abc")))
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectBodyList(MovieInfoBatchItem.class)
+            .consumeWith(listEntityExchangeResult -> {
+              var items = listEntityExchangeResult.getResponseBody();
+              assertNotNull(items);
+              assertEquals(2, items.size());
+              assertTrue(items.get(0).isFound());
+              assertEquals("Dark Knight Rises", items.get(0).getMovieInfo().getName());
+              assertFalse(items.get(1).isFound());
+              assertEquals("def", items.get(1).getMovieInfoId());
+            });
+  }
+
+  @Test
+  void publishesRequestAndMongoMetrics() {
+    webTestClient.get()
+            .uri(MOVIES_INFO_URL + "/abc")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful();
+
+    assertNotNull(meterRegistry.find("http.server.requests").tag("uri", "/v1/movieinfos/{id}").timer());
+    assertNotNull(meterRegistry.find("mongodb.driver.commands")
+            .tag("command", "find")
+            .tag("collection", "movieInfo")
+            .timer());
+
+    webTestClient.get()
+            .uri("/actuator/prometheus")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(String.class)
+            .value(scrape -> {
+              assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+              assertTrue(scrape.contains("mongodb_driver_commands_seconds_bucket{"));
+            });
+  }
+
+  @Test
+  void getMovieInfoById_tracesMongoAsChildOfTheRequest() {
+    webTestClient.get()
+            .uri(MOVIES_INFO_URL + "/abc")
+            .header("X-B3-TraceId", TRACE_ID)
+            .header("X-B3-SpanId", "a2fb4a1d1a96d312")
+            .header("X-B3-Sampled", "1")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful();
+
+    // Sleuth has no reactive Mongo instrumentation, the span comes from MongoSpans
+    var server = finishedSpans.await(span -> span.kind() == Span.Kind.SERVER);
+    var mongo = finishedSpans.await(span -> "movieInfo".equals(span.tag("mongodb.collection")));
+    assertEquals(server.id(), mongo.parentId());
+    assertEquals(Span.Kind.CLIENT, mongo.kind());
+    assertEquals("mongodb", mongo.remoteServiceName());
+    assertEquals("find", mongo.tag("mongodb.command"));
+  }
+
+  @TestConfiguration
+  static class FinishedSpansConfig {
+
+    @Bean
+    FinishedSpans finishedSpans() {
+      return new FinishedSpans();
+    }
+  }
+
+  // spans finished in this test's trace; the server span ends after the response is written, hence the wait
+  static class FinishedSpans extends SpanHandler {
+
+    private final List<MutableSpan> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+      if (cause == Cause.FINISHED && TRACE_ID.equals(span.traceId())) {
+        spans.add(span);
+      }
+      return true;
+    }
+
+    MutableSpan await(Predicate<MutableSpan> predicate) {
+      var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (System.nanoTime() < deadline) {
+        var match = spans.stream().filter(predicate).findFirst();
+        if (match.isPresent()) {
+          return match.get();
+        }
+        LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+      }
+      throw new AssertionError("no finished span matched, got " + spans);
+    }
+  }
+}
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import reactor.test.StepVerifier;
 import java.time.LocalDate;
@@ -15,11 +17,18 @@ import java.util.List;
 
 @DataMongoTest
 @ActiveProfiles("test")
+@Import(SentQueries.Config.class)
 class MovieInfoRepositoryIntegrationTest {
 
   @Autowired
   MovieInfoRepository repository;
 
+  @Autowired
+  ReactiveMongoTemplate mongoTemplate;
+
+  @Autowired
+  SentQueries sentQueries;
+
   @BeforeEach
   void setUp() {
     var movieInfos = List.of(new MovieInfo(null, "Batman Begins",
@@ -97,6 +106,17 @@ class MovieInfoRepositoryIntegrationTest {
             .verifyComplete();
   }
 
+  @Test
+  void removeById() {
+    StepVerifier.create(repository.removeById("abc"))
+            .assertNext(result -> assertEquals(1, result.getDeletedCount()))
+            .verifyComplete();
+
+    StepVerifier.create(repository.removeById("abc"))
+            .assertNext(result -> assertEquals(0, result.getDeletedCount()))
+            .verifyComplete();
+  }
+
   @Test
   void findByYear() {
     var moviesInfoFlux = repository.findByYear(2005).log();
@@ -105,4 +125,32 @@ class MovieInfoRepositoryIntegrationTest {
             .expectNextCount(1)
             .verifyComplete();
   }
-}
\ No newline at end of file
+
+  @Test
+  void findByYear_usesIndex() {
+    assertIndexed(sentQueries.winningPlans(mongoTemplate, repository.findByYear(2005)));
+  }
+
+  // a later page of GET /v1/movieinfos?year=..., resumed after the previous page's last id
+  @Test
+  void findPage_byYear_usesIndex() {
+    assertIndexed(sentQueries.winningPlans(mongoTemplate,
+            repository.findPage(2012, "abb", 10, List.of("name", "year"))));
+  }
+
+  @Test
+  void findPage_usesIndex() {
+    assertIndexed(sentQueries.winningPlans(mongoTemplate,
+            repository.findPage(null, "abb", 10, List.of())));
+  }
+
+  private static void assertIndexed(List<String> plans) {
+    assertFalse(plans.isEmpty(), "no find was sent");
+    plans.forEach(plan -> {
+      assertTrue(plan.contains("IXSCAN"), plan);
+      assertFalse(plan.contains("COLLSCAN"), plan);
+      // the index already yields the page order, so no in-memory sort stage
+      assertFalse(plan.contains("\"SORT\""), plan);
+    });
+  }
+}
@@ -1,21 +1,31 @@
 package com.reactivespring.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBatchItem;
+import com.reactivespring.domain.MovieInfoBatchRequest;
+import com.reactivespring.domain.MovieInfoBulkReport;
+import com.reactivespring.domain.MovieInfoChange;
 import com.reactivespring.service.MoviesInfoService;
+import com.reactivespring.trace.SignalTrace;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -29,6 +39,9 @@ public class MovieInfoControllerUnitTest {
   @MockBean
   private MoviesInfoService moviesInfoService;
 
+  @Autowired
+  private SignalTrace signalTrace;
+
   static String MOVIES_INFO_URL = "/v1/movieinfos";
 
   @Test
@@ -41,7 +54,7 @@ public class MovieInfoControllerUnitTest {
             new MovieInfo("abc", "Dark Knight Rises",
             2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-08")));
 
-    when(moviesInfoService.getAllMovieInfos()).thenReturn(Flux.fromIterable(movieInfos));
+    when(moviesInfoService.getMovieInfos(null, null, 100, List.of())).thenReturn(Flux.fromIterable(movieInfos));
 
     webTestClient
             .get()
@@ -53,6 +66,142 @@ public class MovieInfoControllerUnitTest {
             .hasSize(3);
   }
 
+  @Test
+  void getAllMoviesInfo_signalTraced() {
+    when(moviesInfoService.getMovieInfos(null, null, 100, List.of()))
+            .thenReturn(Flux.just(new MovieInfo("abc", "Dark Knight Rises", 2012, null, null)));
+    signalTrace.update(SignalTrace.Mode.HEADER, 0.0);
+
+    try {
+      webTestClient
+              .get()
+              .uri(MOVIES_INFO_URL)
+              .header("X-Debug-Trace", "true")
+              .exchange()
+              .expectStatus()
+              .is2xxSuccessful()
+              .expectBodyList(MovieInfo.class)
+              .hasSize(1);
+    } finally {
+      signalTrace.update(SignalTrace.Mode.OFF, 0.0);
+    }
+  }
+
+  @Test
+  void getAllMoviesInfo_page() {
+    var movieInfo = new MovieInfo("def", "Dark Knight Rises", null, null, null);
+
+    when(moviesInfoService.getMovieInfos(2012, "abc", 2, List.of("name")))
+            .thenReturn(Flux.just(movieInfo));
+
+    webTestClient
+            .get()
+            .uri(MOVIES_INFO_URL + "?year=2012&after=abc&limit=2&fields=name")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectBodyList(MovieInfo.class)
+            .contains(movieInfo);
+  }
+
+  @Test
+  void getAllMoviesInfo_invalidLimit() {
+    webTestClient
+            .get()
+            .uri(MOVIES_INFO_URL + "?limit=5000")
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+  }
+
+  @Test
+  void getAllMoviesInfo_invalidFields() {
+    webTestClient
+            .get()
+            .uri(MOVIES_INFO_URL + "?fields=name,secret")
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+  }
+
+  @Test
+  void exportMovieInfos() {
+    var movieInfos = List.of(new MovieInfo("abc", "Dark Knight Rises",
+                    2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-08")),
+            new MovieInfo("def", "Batman Begins",
+                    2005, List.of("Christian Bale", "Michal Cane"), LocalDate.parse("2005-05-15")));
+
+    when(moviesInfoService.streamMovieInfos(null, 256)).thenReturn(Flux.fromIterable(movieInfos));
+
+    var exportFlux = webTestClient
+            .get()
+            .uri(MOVIES_INFO_URL)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .returnResult(MovieInfo.class)
+            .getResponseBody();
+
+    StepVerifier.create(exportFlux)
+            .expectNextSequence(movieInfos)
+            .verifyComplete();
+  }
+
+  @Test
+  void exportMovieInfos_invalidBatchSize() {
+    webTestClient
+            .get()
+            .uri(MOVIES_INFO_URL + "?batchSize=0")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+  }
+
+  @Test
+  void getMovieInfoChanges() {
+    when(moviesInfoService.getMovieInfoChanges("41"))
+            .thenReturn(Flux.just(new MovieInfoChange("42", MovieInfoChange.Type.DELETE, "abc", null)));
+
+    var changesFlux = webTestClient
+            .get()
+            .uri(MOVIES_INFO_URL + "/changes")
+            .header("Last-Event-ID", "41")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<MovieInfoChange>>() {
+            })
+            .getResponseBody();
+
+    StepVerifier.create(changesFlux)
+            .assertNext(event -> {
+              assertEquals("42", event.id());
+              assertEquals("delete", event.event());
+              assertEquals("abc", event.data().getMovieInfoId());
+            })
+            .verifyComplete();
+  }
+
+  @Test
+  void bulkAddMovieInfos() {
+    var report = new MovieInfoBulkReport(1, 1, List.of(
+            new MovieInfoBulkReport.RecordError(1, null, "movieInfo.name must be present")));
+    when(moviesInfoService.bulkUpsertMovieInfos(any())).thenReturn(Mono.just(report));
+
+    webTestClient
+            .post()
+            .uri(MOVIES_INFO_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue("{\"name\":\"Batman Begins\",\"year\":2005}\n{\"year\":2008}\n")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectBody(MovieInfoBulkReport.class)
+            .isEqualTo(report);
+  }
+
   @Test
   void getMovieInfoById() {
     MovieInfo movie = new MovieInfo("abc", "Dark Knight Rises",
@@ -161,4 +310,44 @@ public class MovieInfoControllerUnitTest {
             .isNoContent()
             .expectBody(Void.class);
   }
+
+  @Test
+  void getMovieInfosByIds() {
+    var movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+            2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-08"));
+
+    when(moviesInfoService.getMovieInfosByIds(List.of("abc", "def")))
+            .thenReturn(Flux.just(MovieInfoBatchItem.found(movieInfo), MovieInfoBatchItem.missing("def")));
+
+    webTestClient
+            .post()
+            .uri(MOVIES_INFO_URL + "/batch-get")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(new MovieInfoBatchRequest(List.of("abc", "def")))
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful()
+            .expectBodyList(MovieInfoBatchItem.class)
+            .consumeWith(listEntityExchangeResult -> {
+              var items = listEntityExchangeResult.getResponseBody();
+              assertNotNull(items);
+              assertEquals(2, items.size());
+              assertEquals("Dark Knight Rises", items.get(0).getMovieInfo().getName());
+              assertEquals("def", items.get(1).getMovieInfoId());
+              assertFalse(items.get(1).isFound());
+            });
+  }
+
+  @Test
+  void getMovieInfosByIds_validation() {
+    webTestClient
+            .post()
+            .uri(MOVIES_INFO_URL + "/batch-get")
+            .bodyValue(new MovieInfoBatchRequest(List.of()))
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("movieInfoBatchRequest.ids must not be empty");
+  }
 }
@@ -0,0 +1,169 @@
+package com.reactivespring.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoChange;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class MovieInfoChangeFeedUnitTest {
+
+  ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+
+  MovieInfo movieInfo = new MovieInfo("abc", "Dark Knight Rises",
+          2012, List.of("Christian Bale", "Tom Hardy"), LocalDate.parse("2012-07-08"));
+
+  @Test
+  void changes_startFromNow() {
+    var changeFeed = new MovieInfoChangeFeed(mongoTemplate, "local", 10);
+    changeFeed.inserted(movieInfo);
+
+    StepVerifier.create(changeFeed.changes(null))
+            .then(() -> {
+              changeFeed.updated(movieInfo);
+              changeFeed.deleted("abc");
+            })
+            .assertNext(change -> {
+              assertEquals(MovieInfoChange.Type.UPDATE, change.getType());
+              assertTrue(change.getResumeToken().endsWith(".2"));
+              assertEquals(movieInfo, change.getMovieInfo());
+            })
+            .assertNext(change -> {
+              assertEquals(MovieInfoChange.Type.DELETE, change.getType());
+              assertEquals("abc", change.getMovieInfoId());
+            })
+            .thenCancel()
+            .verify();
+  }
+
+  @Test
+  void changes_resumeAfterToken() {
+    var changeFeed = new MovieInfoChangeFeed(mongoTemplate, "local", 10);
+    changeFeed.inserted(movieInfo);
+    var tokens = new ArrayList<String>();
+    changeFeed.changes(null).map(MovieInfoChange::getResumeToken).subscribe(tokens::add);
+    changeFeed.updated(movieInfo);
+    changeFeed.deleted("abc");
+
+    StepVerifier.create(changeFeed.changes(tokens.get(0)))
+            .assertNext(change -> assertEquals(tokens.get(1), change.getResumeToken()))
+            .expectNoEvent(Duration.ofMillis(50))
+            .thenCancel()
+            .verify();
+  }
+
+  @Test
+  void changes_resetOnTokenOfAnotherInstance() {
+    var previousRun = new MovieInfoChangeFeed(mongoTemplate, "local", 10);
+    var tokens = new ArrayList<String>();
+    previousRun.changes(null).map(MovieInfoChange::getResumeToken).subscribe(tokens::add);
+    for (int i = 0; i < 5; i++) {
+      previousRun.updated(movieInfo);
+    }
+    var changeFeed = new MovieInfoChangeFeed(mongoTemplate, "local", 10);
+    changeFeed.inserted(movieInfo);
+
+    // the sequence restarted with the process, so a token from before must not be compared against it
+    StepVerifier.create(changeFeed.changes(tokens.get(4)))
+            .assertNext(change -> {
+              assertEquals(MovieInfoChange.Type.RESET, change.getType());
+              assertTrue(change.getResumeToken().endsWith(".1"));
+            })
+            .then(() -> changeFeed.deleted("abc"))
+            .assertNext(change -> assertEquals(MovieInfoChange.Type.DELETE, change.getType()))
+            .thenCancel()
+            .verify();
+  }
+
+  @Test
+  void changes_resetWhenTokenFellOutOfTheReplayWindow() {
+    var changeFeed = new MovieInfoChangeFeed(mongoTemplate, "local", 2);
+    var tokens = new ArrayList<String>();
+    changeFeed.changes(null).map(MovieInfoChange::getResumeToken).subscribe(tokens::add);
+    changeFeed.inserted(movieInfo);
+    changeFeed.updated(movieInfo);
+    changeFeed.updated(movieInfo);
+
+    // the two retained changes directly follow the first one, so it can still be resumed
+    StepVerifier.create(changeFeed.changes(tokens.get(0)))
+            .expectNextCount(2)
+            .thenCancel()
+            .verify();
+
+    changeFeed.deleted("abc");
+    StepVerifier.create(changeFeed.changes(tokens.get(0)))
+            .assertNext(change -> {
+              assertEquals(MovieInfoChange.Type.RESET, change.getType());
+              assertEquals(tokens.get(3), change.getResumeToken());
+            })
+            .expectNoEvent(Duration.ofMillis(50))
+            .thenCancel()
+            .verify();
+  }
+
+  @Test
+  void changes_autoFallsBackToLocalOnStandalone() {
+    when(mongoTemplate.executeCommand("{ isMaster: 1 }"))
+            .thenReturn(Mono.just(new Document("ismaster", true)));
+    var changeFeed = new MovieInfoChangeFeed(mongoTemplate, "auto", 10);
+
+    StepVerifier.create(changeFeed.changes(null))
+            .then(() -> changeFeed.inserted(movieInfo))
+            .assertNext(change -> assertEquals(MovieInfoChange.Type.INSERT, change.getType()))
+            .thenCancel()
+            .verify();
+  }
+
+  @Test
+  void changes_autoDetectsAgainAfterAnError() {
+    // the first subscriber's attempt and both retries fail, the next subscriber's attempt succeeds
+    when(mongoTemplate.executeCommand("{ isMaster: 1 }"))
+            .thenReturn(Mono.error(new DataAccessResourceFailureException("connection reset")),
+                    Mono.error(new DataAccessResourceFailureException("connection reset")),
+                    Mono.error(new DataAccessResourceFailureException("connection reset")),
+                    Mono.just(new Document("setName", "rs0")));
+    when(mongoTemplate.getCollectionName(MovieInfo.class)).thenReturn("movieInfo");
+    when(mongoTemplate.changeStream(eq("movieInfo"), any(ChangeStreamOptions.class), eq(MovieInfo.class)))
+            .thenReturn(Flux.never());
+    var changeFeed = new MovieInfoChangeFeed(mongoTemplate, "auto", 10);
+
+    // the local sink starts from now, so publish once the retries are over
+    StepVerifier.create(changeFeed.changes(null))
+            .expectSubscription()
+            .expectNoEvent(Duration.ofMillis(500))
+            .then(() -> changeFeed.inserted(movieInfo))
+            .assertNext(change -> assertEquals(MovieInfoChange.Type.INSERT, change.getType()))
+            .thenCancel()
+            .verify();
+
+    for (int i = 0; i < 2; i++) {
+      StepVerifier.create(changeFeed.changes(null))
+              .expectSubscription()
+              .expectNoEvent(Duration.ofMillis(50))
+              .thenCancel()
+              .verify();
+    }
+
+    // the successful answer is kept
+    verify(mongoTemplate, times(4)).executeCommand("{ isMaster: 1 }");
+    verify(mongoTemplate, times(2)).changeStream(eq("movieInfo"), any(ChangeStreamOptions.class), eq(MovieInfo.class));
+  }
+}
@@ -0,0 +1,29 @@
+package com.reactivespring.config;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j(topic = "tracing.spans")
+public class TracingConfig {
+
+  // local exporter: finished (sampled) spans are written as JSON to the tracing.spans logger instead of a collector
+  @Bean
+  @ConditionalOnProperty(name = "tracing.logSpans", havingValue = "true")
+  public SpanHandler loggingSpanHandler() {
+    return new SpanHandler() {
+      @Override
+      public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause == Cause.FINISHED) {
+          log.info("{}", span);
+        }
+        return true;
+      }
+    };
+  }
+}
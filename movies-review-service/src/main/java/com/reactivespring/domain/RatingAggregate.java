@@ -0,0 +1,49 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document
+public class RatingAggregate {
+
+    @Id
+    private Long movieInfoId;
+    private long count;
+    private double sum;
+    private Double min;
+    private Double max;
+    // review count per whole rating point, keyed by bucket(rating)
+    private Map<String, Long> histogram = new HashMap<>();
+
+    public RatingAggregate(Long movieInfoId) {
+        this.movieInfoId = movieInfoId;
+    }
+
+    // derived on read, never stored
+    public Double getMean() {
+        return count > 0 ? sum / count : null;
+    }
+
+    public RatingAggregate add(Review review) {
+        var rating = review.getRating();
+        movieInfoId = review.getMovieInfoId();
+        count++;
+        sum += rating;
+        min = min == null ? rating : Math.min(min, rating);
+        max = max == null ? rating : Math.max(max, rating);
+        histogram.merge(bucket(rating), 1L, Long::sum);
+        return this;
+    }
+
+    public static String bucket(double rating) {
+        return Long.toString((long) Math.floor(rating));
+    }
+}
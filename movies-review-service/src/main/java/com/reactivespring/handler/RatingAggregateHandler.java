@@ -0,0 +1,54 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.RatingAggregate;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.repository.RatingAggregateRepository;
+import com.reactivespring.trace.MongoSpans;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import java.util.Map;
+
+@Component
+public class RatingAggregateHandler {
+
+  private final RatingAggregateRepository ratingAggregateRepository;
+  private final MongoSpans mongoSpans;
+
+  public RatingAggregateHandler(RatingAggregateRepository ratingAggregateRepository, ObjectProvider<Tracer> tracer) {
+    this.ratingAggregateRepository = ratingAggregateRepository;
+    this.mongoSpans = new MongoSpans(tracer.getIfAvailable());
+  }
+
+  public Mono<ServerResponse> getRatingAggregate(ServerRequest request) {
+
+    var movieInfoId = movieInfoId(request.pathVariable("movieInfoId"));
+
+    // a movie nobody has rated yet gets an empty aggregate rather than a 404
+    return mongoSpans.mono("find", RatingAggregate.class, ratingAggregateRepository.findById(movieInfoId))
+            .defaultIfEmpty(new RatingAggregate(movieInfoId))
+            .flatMap(ServerResponse.ok()::bodyValue);
+  }
+
+  public Mono<ServerResponse> rebuildRatingAggregates(ServerRequest request) {
+
+    var rebuilt = request.queryParam("movieInfoId")
+            .map(value -> ratingAggregateRepository.rebuild(movieInfoId(value))
+                    .map(aggregate -> 1L)
+                    .defaultIfEmpty(0L))
+            .orElseGet(ratingAggregateRepository::rebuildAll);
+
+    return rebuilt.flatMap(count -> ServerResponse.ok().bodyValue(Map.of("rebuilt", count)));
+  }
+
+  private Long movieInfoId(String value) {
+    try {
+      return Long.valueOf(value);
+    } catch (NumberFormatException ex) {
+      throw new ReviewDataException("movieInfoId must be numeric: " + ex.getMessage());
+    }
+  }
+}
@@ -1,13 +1,25 @@
 package com.reactivespring.handler;
 
+import com.learnreactiveprogramming.operators.Batching;
+import com.mongodb.MongoBulkWriteException;
 import com.mongodb.internal.connection.Server;
+import com.reactivespring.domain.MovieReviews;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewBulkReport;
 import com.reactivespring.exception.ReviewDataException;
 import com.reactivespring.exception.ReviewNotFoundException;
+import com.reactivespring.repository.RatingAggregateRepository;
 import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.trace.MongoSpans;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
@@ -15,6 +27,10 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validator;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Component
@@ -24,21 +40,97 @@ public class ReviewHandler {
   @Autowired
   private Validator validator;
   private final ReviewReactiveRepository reviewReactiveRepository;
+  private final RatingAggregateRepository ratingAggregateRepository;
+  private final MongoSpans mongoSpans;
 
-  public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository) {
+  @Value("${reviews.bulk.batchSize}")
+  private int bulkBatchSize;
+
+  @Value("${reviews.bulk.maxWait}")
+  private Duration bulkMaxWait;
+
+  @Value("${reviews.bulk.concurrency}")
+  private int bulkConcurrency;
+
+  @Value("${reviews.recent.defaultLimit}")
+  private int recentDefaultLimit;
+
+  @Value("${reviews.recent.maxLimit}")
+  private int recentMaxLimit;
+
+  public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository,
+                       RatingAggregateRepository ratingAggregateRepository,
+                       ObjectProvider<Tracer> tracer) {
     this.reviewReactiveRepository = reviewReactiveRepository;
+    this.ratingAggregateRepository = ratingAggregateRepository;
+    this.mongoSpans = new MongoSpans(tracer.getIfAvailable());
   }
 
   public Mono<ServerResponse> addReview(ServerRequest request) {
     return request.bodyToMono(Review.class)
             .doOnNext(this::validate)
-            .flatMap(reviewReactiveRepository::save)
+            .flatMap(review -> mongoSpans.mono("save", Review.class, reviewReactiveRepository.save(review)))
+            .flatMap(savedReview -> ratingAggregateRepository
+                    .addRatings(savedReview.getMovieInfoId(), ratingOf(savedReview))
+                    .thenReturn(savedReview))
             .flatMap(ServerResponse.status(HttpStatus.CREATED)::bodyValue);
   }
 
+  public Mono<ServerResponse> addReviews(ServerRequest request) {
+    var rejected = new AtomicLong();
+
+    var validReviews = request.bodyToFlux(Review.class)
+            .filter(review -> {
+              var valid = validator.validate(review).isEmpty();
+              if (!valid) {
+                rejected.incrementAndGet();
+              }
+              return valid;
+            });
+
+    // a batch is closed at bulkBatchSize, or bulkMaxWait after its first review so accepted reviews are not
+    // held back when the importer pauses; a batch closed while every insert is busy waits for one to finish
+    var accepted = Batching.buffer(validReviews, bulkBatchSize, bulkMaxWait)
+            .flatMap(reviews -> insertBatch(reviews, rejected), bulkConcurrency)
+            .reduce(0L, Long::sum);
+
+    return accepted
+            .map(acceptedCount -> new ReviewBulkReport(acceptedCount, rejected.get()))
+            .flatMap(ServerResponse.ok()::bodyValue);
+  }
+
+  private Mono<Long> insertBatch(List<Review> reviews, AtomicLong rejected) {
+    return mongoSpans.flux("insert", Review.class, reviewReactiveRepository.insert(reviews))
+            .collectList()
+            .onErrorResume(ex -> {
+              log.error("Bulk insert of {} reviews failed", reviews.size(), ex);
+              // insertMany is ordered, so everything before the failing document was written
+              var inserted = ex.getCause() instanceof MongoBulkWriteException
+                      ? ((MongoBulkWriteException) ex.getCause()).getWriteResult().getInsertedCount()
+                      : 0;
+              rejected.addAndGet(reviews.size() - inserted);
+              return Mono.just(reviews.subList(0, inserted));
+            })
+            .flatMap(inserted -> addRatings(inserted).thenReturn((long) inserted.size()));
+  }
+
+  // one $inc per movie instead of one per review
+  private Mono<Void> addRatings(List<Review> reviews) {
+    var ratingsByMovie = reviews.stream()
+            .filter(review -> review.getRating() != null)
+            .collect(Collectors.groupingBy(Review::getMovieInfoId,
+                    Collectors.mapping(Review::getRating, Collectors.toList())));
+    return Flux.fromIterable(ratingsByMovie.entrySet())
+            .flatMap(entry -> ratingAggregateRepository.addRatings(entry.getKey(), entry.getValue()))
+            .then();
+  }
+
+  private static List<Double> ratingOf(Review review) {
+    return review.getRating() == null ? List.of() : List.of(review.getRating());
+  }
+
   private void validate(Review review) {
     var constraintViolations = validator.validate(review);
-    log.info("constraintViolations: {}", constraintViolations);
     if (constraintViolations.size() > 0) {
       String errorMessage = constraintViolations
               .stream()
@@ -51,17 +143,78 @@ public class ReviewHandler {
 
   public Mono<ServerResponse> getReviews(ServerRequest request) {
 
-    var movieInfoId = request.queryParam("movieInfoId");
+    var movieInfoIds = movieInfoIds(request);
 
     Flux<Review> reviewsFlux;
-    if (movieInfoId.isPresent()) {
-      reviewsFlux = reviewReactiveRepository.findReviewsByMovieInfoId(Long.valueOf(movieInfoId.get()));
+    if (movieInfoIds.size() == 1) {
+      reviewsFlux = reviewReactiveRepository.findReviewsByMovieInfoId(movieInfoIds.get(0));
+    } else if (movieInfoIds.size() > 1) {
+      reviewsFlux = reviewReactiveRepository.findReviewsByMovieInfoIdIn(movieInfoIds, Sort.unsorted());
     } else {
       reviewsFlux = reviewReactiveRepository.findAll();
     }
+    return buildReviewsResponse(mongoSpans.flux("find", Review.class, reviewsFlux));
+  }
+
+  public Mono<ServerResponse> getReviewsGroupedByMovie(ServerRequest request) {
+
+    var movieInfoIds = movieInfoIds(request);
+    if (movieInfoIds.isEmpty()) {
+      return Mono.error(new ReviewDataException("movieInfoId query parameter must be present"));
+    }
+
+    // sorting on movieInfoId keeps each movie's reviews contiguous, so groups are
+    // emitted as soon as the cursor moves past them
+    var movieReviewsFlux = mongoSpans.flux("find", Review.class, reviewReactiveRepository
+                    .findReviewsByMovieInfoIdIn(movieInfoIds, Sort.by("movieInfoId")))
+            .bufferUntilChanged(Review::getMovieInfoId)
+            .map(reviews -> new MovieReviews(reviews.get(0).getMovieInfoId(), reviews));
+
+    return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(movieReviewsFlux, MovieReviews.class);
+  }
+
+  public Mono<ServerResponse> getRecentReviews(ServerRequest request) {
+
+    var movieInfoIds = movieInfoIds(request);
+    if (movieInfoIds.size() != 1) {
+      return Mono.error(new ReviewDataException("exactly one movieInfoId query parameter must be present"));
+    }
+    var limit = request.queryParam("limit")
+            .map(value -> {
+              try {
+                return Integer.valueOf(value);
+              } catch (NumberFormatException ex) {
+                throw new ReviewDataException("limit must be numeric: " + ex.getMessage());
+              }
+            })
+            .orElse(recentDefaultLimit);
+    if (limit < 1 || limit > recentMaxLimit) {
+      return Mono.error(new ReviewDataException("limit must be between 1 and " + recentMaxLimit));
+    }
+
+    // sort and limit run in Mongo on the movieInfoId_id index, only the requested reviews leave the database
+    var reviewsFlux = mongoSpans.flux("find", Review.class, reviewReactiveRepository.findReviewsByMovieInfoId(
+            movieInfoIds.get(0), PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "reviewId"))));
     return buildReviewsResponse(reviewsFlux);
   }
 
+  private List<Long> movieInfoIds(ServerRequest request) {
+    try {
+      return request.queryParams().getOrDefault("movieInfoId", List.of())
+              .stream()
+              .flatMap(value -> Arrays.stream(value.split(",")))
+              .map(String::trim)
+              .filter(value -> !value.isEmpty())
+              .map(Long::valueOf)
+              .distinct()
+              .collect(Collectors.toList());
+    } catch (NumberFormatException ex) {
+      throw new ReviewDataException("movieInfoId must be numeric: " + ex.getMessage());
+    }
+  }
+
   private Mono<ServerResponse> buildReviewsResponse(Flux<Review> reviewsFlux) {
     return ServerResponse.ok().body(reviewsFlux, Review.class);
   }
@@ -70,19 +223,27 @@ public class ReviewHandler {
 
     var reviewId = request.pathVariable("id");
 
-    var existingReview = reviewReactiveRepository.findById(reviewId);
+    var existingReview = mongoSpans.mono("find", Review.class, reviewReactiveRepository.findById(reviewId));
             //.switchIfEmpty(Mono.error(new ReviewNotFoundException("Review not found for the given review id: " + reviewId)));
 
     return existingReview
-            .flatMap(review -> request.bodyToMono(Review.class)
-                    .map(reqReview -> {
-                      review.setComment(reqReview.getComment());
-                      review.setRating(reqReview.getRating());
-                      return review;
-                    })
-                    .flatMap(reviewReactiveRepository::save)
-                    .flatMap(savedReview -> ServerResponse.ok().bodyValue(savedReview))
-            )
+            .flatMap(review -> {
+              var previousRating = ratingOf(review);
+              return request.bodyToMono(Review.class)
+                      .map(reqReview -> {
+                        review.setComment(reqReview.getComment());
+                        review.setRating(reqReview.getRating());
+                        return review;
+                      })
+                      .flatMap(updated -> mongoSpans.mono("save", Review.class, reviewReactiveRepository.save(updated)))
+                      .flatMap(savedReview -> previousRating.equals(ratingOf(savedReview))
+                              ? Mono.just(savedReview)
+                              : ratingAggregateRepository.removeRatings(savedReview.getMovieInfoId(), previousRating)
+                                      .then(ratingAggregateRepository.addRatings(savedReview.getMovieInfoId(),
+                                              ratingOf(savedReview)))
+                                      .thenReturn(savedReview))
+                      .flatMap(savedReview -> ServerResponse.ok().bodyValue(savedReview));
+            })
             .switchIfEmpty(ServerResponse.notFound().build());
   }
 
@@ -90,9 +251,11 @@ public class ReviewHandler {
 
     var reviewId = request.pathVariable("id");
 
-    var existingReview = reviewReactiveRepository.findById(reviewId);
+    var existingReview = mongoSpans.mono("find", Review.class, reviewReactiveRepository.findById(reviewId));
 
-    return existingReview.flatMap(review -> reviewReactiveRepository.deleteById(reviewId)
+    return existingReview.flatMap(review -> mongoSpans.mono("delete", Review.class,
+                    reviewReactiveRepository.deleteById(reviewId))
+            .then(ratingAggregateRepository.removeRatings(review.getMovieInfoId(), ratingOf(review)))
             .then(ServerResponse.noContent().build()));
   }
 }
@@ -0,0 +1,24 @@
+package com.reactivespring.job;
+
+import com.reactivespring.repository.RatingAggregateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class RatingAggregateRebuildJob {
+
+  private final RatingAggregateRepository ratingAggregateRepository;
+
+  public RatingAggregateRebuildJob(RatingAggregateRepository ratingAggregateRepository) {
+    this.ratingAggregateRepository = ratingAggregateRepository;
+  }
+
+  // corrects drift left by concurrent incremental updates; the scheduler thread may block
+  @Scheduled(cron = "${reviews.aggregates.rebuildCron}")
+  public void rebuildRatingAggregates() {
+    var rebuilt = ratingAggregateRepository.rebuildAll().block();
+    log.info("Rebuilt {} rating aggregates", rebuilt);
+  }
+}
@@ -0,0 +1,9 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.RatingAggregate;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+public interface RatingAggregateRepository extends ReactiveMongoRepository<RatingAggregate, Long>,
+        RatingAggregateRepositoryCustom {
+
+}
@@ -0,0 +1,17 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.RatingAggregate;
+import reactor.core.publisher.Mono;
+import java.util.Collection;
+
+public interface RatingAggregateRepositoryCustom {
+
+  Mono<Void> addRatings(Long movieInfoId, Collection<Double> ratings);
+
+  Mono<Void> removeRatings(Long movieInfoId, Collection<Double> ratings);
+
+  Mono<RatingAggregate> rebuild(Long movieInfoId);
+
+  Mono<Long> rebuildAll();
+
+}
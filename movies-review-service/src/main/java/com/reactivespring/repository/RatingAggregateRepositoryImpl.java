@@ -0,0 +1,250 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.RatingAggregate;
+import com.reactivespring.domain.Review;
+import com.reactivespring.trace.MongoSpans;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class RatingAggregateRepositoryImpl implements RatingAggregateRepositoryCustom {
+
+  // bumped by every change to the counts; stored only, the domain type and the API do not carry it
+  private static final String VERSION = "version";
+  private static final Optional<Long> ABSENT = Optional.empty();
+  private static final int REBUILD_ATTEMPTS = 5;
+
+  private final ReactiveMongoTemplate mongoTemplate;
+  private final MongoSpans mongoSpans;
+
+  public RatingAggregateRepositoryImpl(ReactiveMongoTemplate mongoTemplate, ObjectProvider<Tracer> tracer) {
+    this.mongoTemplate = mongoTemplate;
+    this.mongoSpans = new MongoSpans(tracer.getIfAvailable());
+  }
+
+  @Override
+  public Mono<Void> addRatings(Long movieInfoId, Collection<Double> ratings) {
+    if (ratings.isEmpty()) {
+      return Mono.empty();
+    }
+    var stats = ratings.stream().mapToDouble(Double::doubleValue).summaryStatistics();
+    var update = new Update()
+            .inc("count", stats.getCount())
+            .inc("sum", stats.getSum())
+            .min("min", stats.getMin())
+            .max("max", stats.getMax())
+            .inc(VERSION, 1);
+    histogram(ratings).forEach((bucket, count) -> update.inc("histogram." + bucket, count));
+    return mongoSpans.mono("update", RatingAggregate.class,
+            mongoTemplate.upsert(byMovieInfoId(movieInfoId), update, RatingAggregate.class)).then();
+  }
+
+  @Override
+  public Mono<Void> removeRatings(Long movieInfoId, Collection<Double> ratings) {
+    if (ratings.isEmpty()) {
+      return Mono.empty();
+    }
+    var stats = ratings.stream().mapToDouble(Double::doubleValue).summaryStatistics();
+    var buckets = histogram(ratings);
+    var update = new Update()
+            .inc("count", -stats.getCount())
+            .inc("sum", -stats.getSum())
+            .inc(VERSION, 1);
+    buckets.forEach((bucket, count) -> update.inc("histogram." + bucket, -count));
+    return mongoSpans.mono("findAndModify", RatingAggregate.class, mongoTemplate.findAndModify(byMovieInfoId(movieInfoId),
+                    update, FindAndModifyOptions.options().returnNew(true), RatingAggregate.class))
+            .flatMap(aggregate -> {
+              // end up in the shape rebuild writes: no aggregate without ratings and no empty buckets
+              if (aggregate.getCount() <= 0) {
+                return mongoSpans.mono("delete", RatingAggregate.class, mongoTemplate.remove(byMovieInfoId(movieInfoId)
+                        .addCriteria(Criteria.where("count").lte(0)), RatingAggregate.class)).then();
+              }
+              var emptyBuckets = Flux.fromIterable(buckets.keySet())
+                      .filter(bucket -> aggregate.getHistogram().getOrDefault(bucket, 0L) <= 0)
+                      .concatMap(bucket -> mongoSpans.mono("update", RatingAggregate.class,
+                              mongoTemplate.updateFirst(byMovieInfoId(movieInfoId)
+                                              .addCriteria(Criteria.where("histogram." + bucket).lte(0)),
+                                      new Update().unset("histogram." + bucket), RatingAggregate.class)))
+                      .then();
+              // $min/$max cannot be undone, so only go back to the reviews when an extreme was removed
+              var extremeRemoved = aggregate.getMin() == null || stats.getMin() <= aggregate.getMin()
+                      || aggregate.getMax() == null || stats.getMax() >= aggregate.getMax();
+              return extremeRemoved ? emptyBuckets.then(refreshMinMax(movieInfoId)) : emptyBuckets;
+            });
+  }
+
+  // a rebuild repairs drift but is not atomic with the two writes of ReviewHandler: a review that is saved
+  // but not yet counted when the scan reads it is counted once more by its own increment, until the next rebuild
+  @Override
+  public Mono<RatingAggregate> rebuild(Long movieInfoId) {
+    return Mono.defer(() -> currentVersion(movieInfoId)
+                    .flatMap(current -> mongoSpans.flux("find", Review.class,
+                                    mongoTemplate.find(ratedReviews(movieInfoId), Review.class))
+                            .reduceWith(() -> new RatingAggregate(movieInfoId), RatingAggregate::add)
+                            .flatMap(rebuilt -> replace(rebuilt, current))))
+            .retryWhen(Retry.backoff(REBUILD_ATTEMPTS, Duration.ofMillis(20))
+                    .filter(OptimisticLockingFailureException.class::isInstance)
+                    .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+            .flatMap(rebuilt -> rebuilt.getCount() > 0 ? Mono.just(rebuilt) : Mono.empty());
+  }
+
+  @Override
+  public Mono<Long> rebuildAll() {
+    return Mono.defer(this::rebuildAllOnce);
+  }
+
+  private Mono<Long> rebuildAllOnce() {
+    var rebuiltIds = new HashSet<Long>();
+    // sorted by movieInfoId (served by the movieInfoId_rating index) so each movie is folded in one pass
+    var query = ratedReviews(null).with(Sort.by("movieInfoId"));
+    // versions are read before the scan: an aggregate that moved on while its reviews were read is rebuilt
+    // again on its own instead of being overwritten with what the scan saw
+    return currentVersions()
+            .flatMap(versions -> mongoSpans.flux("find", Review.class, mongoTemplate.find(query, Review.class))
+                    .windowUntilChanged(Review::getMovieInfoId)
+                    .concatMap(reviews -> reviews.reduceWith(RatingAggregate::new, RatingAggregate::add))
+                    .flatMap(rebuilt -> replace(rebuilt, versions.getOrDefault(rebuilt.getMovieInfoId(), ABSENT))
+                            .onErrorResume(OptimisticLockingFailureException.class,
+                                    e -> rebuild(rebuilt.getMovieInfoId())
+                                            // still changing after every retry: the increments keep it current,
+                                            // one busy movie must not fail the whole sweep
+                                            .onErrorResume(OptimisticLockingFailureException.class,
+                                                    busy -> Mono.empty())), 4)
+                    .doOnNext(rebuilt -> rebuiltIds.add(rebuilt.getMovieInfoId()))
+                    .count()
+                    // drop aggregates of movies that no longer have any rated review
+                    .flatMap(count -> Flux.fromIterable(versions.entrySet())
+                            .filter(entry -> !rebuiltIds.contains(entry.getKey()))
+                            .concatMap(entry -> removeIfUnrated(entry.getKey(), entry.getValue()))
+                            .then(Mono.just(count))));
+  }
+
+  // the aggregate is written only if it is still at the version read before its reviews were,
+  // otherwise a rating added or removed in between would be lost
+  private Mono<RatingAggregate> replace(RatingAggregate rebuilt, Optional<Long> version) {
+    var movieInfoId = rebuilt.getMovieInfoId();
+    if (rebuilt.getCount() == 0) {
+      return version.isEmpty()
+              ? Mono.just(rebuilt)
+              : mongoSpans.mono("delete", RatingAggregate.class,
+                              mongoTemplate.remove(atVersion(movieInfoId, version.get()), RatingAggregate.class))
+                      .flatMap(result -> result.getDeletedCount() > 0 ? Mono.just(rebuilt) : conflict(movieInfoId));
+    }
+    if (version.isEmpty()) {
+      return mongoSpans.mono("insert", RatingAggregate.class, mongoTemplate.insert(rebuilt))
+              .onErrorResume(DuplicateKeyException.class, e -> conflict(movieInfoId));
+    }
+    var update = new Update()
+            .set("count", rebuilt.getCount())
+            .set("sum", rebuilt.getSum())
+            .set("min", rebuilt.getMin())
+            .set("max", rebuilt.getMax())
+            .set("histogram", rebuilt.getHistogram())
+            .inc(VERSION, 1);
+    return mongoSpans.mono("update", RatingAggregate.class,
+                    mongoTemplate.updateFirst(atVersion(movieInfoId, version.get()), update, RatingAggregate.class))
+            .flatMap(result -> result.getMatchedCount() > 0 ? Mono.just(rebuilt) : conflict(movieInfoId));
+  }
+
+  // a rating may have arrived since the review scan, so look again right before deleting, and only
+  // delete the aggregate as it was when read
+  private Mono<Void> removeIfUnrated(Long movieInfoId, Optional<Long> version) {
+    return mongoSpans.mono("find", Review.class, mongoTemplate.exists(ratedReviews(movieInfoId), Review.class))
+            .filter(rated -> !rated)
+            .flatMap(unrated -> mongoSpans.mono("delete", RatingAggregate.class,
+                    mongoTemplate.remove(atVersion(movieInfoId, version.orElseThrow()), RatingAggregate.class)))
+            .then();
+  }
+
+  private static <T> Mono<T> conflict(Long movieInfoId) {
+    return Mono.error(new OptimisticLockingFailureException(
+            "Rating aggregate " + movieInfoId + " changed while it was rebuilt"));
+  }
+
+  private Mono<Optional<Long>> currentVersion(Long movieInfoId) {
+    return mongoSpans.mono("find", RatingAggregate.class, mongoTemplate.findOne(versionOnly(byMovieInfoId(movieInfoId)),
+                    Document.class, mongoTemplate.getCollectionName(RatingAggregate.class)))
+            .map(RatingAggregateRepositoryImpl::versionOf)
+            .defaultIfEmpty(ABSENT);
+  }
+
+  private Mono<Map<Long, Optional<Long>>> currentVersions() {
+    return mongoSpans.flux("find", RatingAggregate.class, mongoTemplate.find(versionOnly(new Query()), Document.class,
+                    mongoTemplate.getCollectionName(RatingAggregate.class)))
+            .collectMap(document -> document.get("_id", Number.class).longValue(), RatingAggregateRepositoryImpl::versionOf);
+  }
+
+  private static Query versionOnly(Query query) {
+    query.fields().include(VERSION);
+    return query;
+  }
+
+  // present for every aggregate written since versions were introduced, 0 stands in for older ones
+  private static Optional<Long> versionOf(Document document) {
+    var version = document.get(VERSION, Number.class);
+    return Optional.of(version == null ? 0L : version.longValue());
+  }
+
+  private static Query atVersion(Long movieInfoId, long version) {
+    return byMovieInfoId(movieInfoId)
+            .addCriteria(version == 0L
+                    ? new Criteria().orOperator(Criteria.where(VERSION).exists(false), Criteria.where(VERSION).is(0L))
+                    : Criteria.where(VERSION).is(version));
+  }
+
+  private Mono<Void> refreshMinMax(Long movieInfoId) {
+    return Mono.zip(extremeRating(movieInfoId, Sort.Direction.ASC), extremeRating(movieInfoId, Sort.Direction.DESC))
+            .flatMap(minMax -> {
+              var update = new Update();
+              minMax.getT1().ifPresentOrElse(min -> update.set("min", min), () -> update.unset("min"));
+              minMax.getT2().ifPresentOrElse(max -> update.set("max", max), () -> update.unset("max"));
+              return mongoSpans.mono("update", RatingAggregate.class,
+                      mongoTemplate.updateFirst(byMovieInfoId(movieInfoId), update, RatingAggregate.class));
+            })
+            .then();
+  }
+
+  private Mono<Optional<Double>> extremeRating(Long movieInfoId, Sort.Direction direction) {
+    var query = ratedReviews(movieInfoId)
+            .with(Sort.by(direction, "rating"))
+            .limit(1);
+    return mongoSpans.mono("find", Review.class, mongoTemplate.findOne(query, Review.class))
+            .map(review -> Optional.of(review.getRating()))
+            .defaultIfEmpty(Optional.empty());
+  }
+
+  private static Query ratedReviews(Long movieInfoId) {
+    var query = new Query(Criteria.where("rating").ne(null));
+    if (movieInfoId != null) {
+      query.addCriteria(Criteria.where("movieInfoId").is(movieInfoId));
+    }
+    query.fields().include("movieInfoId").include("rating");
+    return query;
+  }
+
+  private static Query byMovieInfoId(Long movieInfoId) {
+    return new Query(Criteria.where("_id").is(movieInfoId));
+  }
+
+  private static Map<String, Long> histogram(Collection<Double> ratings) {
+    return ratings.stream()
+            .collect(Collectors.groupingBy(RatingAggregate::bucket, Collectors.counting()));
+  }
+}
@@ -1,11 +1,18 @@
 package com.reactivespring.repository;
 
 import com.reactivespring.domain.Review;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
 import reactor.core.publisher.Flux;
+import java.util.Collection;
 
 public interface ReviewReactiveRepository extends ReactiveMongoRepository<Review, String> {
 
   Flux<Review> findReviewsByMovieInfoId(Long movieInfoId);
 
+  Flux<Review> findReviewsByMovieInfoId(Long movieInfoId, Pageable pageable);
+
+  Flux<Review> findReviewsByMovieInfoIdIn(Collection<Long> movieInfoIds, Sort sort);
+
 }
@@ -3,6 +3,7 @@ package com.reactivespring.router;
 import static org.springframework.web.reactive.function.server.RequestPredicates.path;
 import static org.springframework.web.reactive.function.server.RouterFunctions.route;
 
+import com.reactivespring.handler.RatingAggregateHandler;
 import com.reactivespring.handler.ReviewHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -13,12 +14,17 @@ import org.springframework.web.reactive.function.server.ServerResponse;
 public class ReviewRouter {
 
   @Bean
-  public RouterFunction<ServerResponse> reviewsRoute(ReviewHandler handler) {
+  public RouterFunction<ServerResponse> reviewsRoute(ReviewHandler handler, RatingAggregateHandler aggregateHandler) {
 
     return route()
             .nest(path("/v1/reviews"), builder -> {
               builder.POST("", handler::addReview)
+                      .POST("/bulk", handler::addReviews)
                       .GET("", handler::getReviews)
+                      .GET("/grouped", handler::getReviewsGroupedByMovie)
+                      .GET("/recent", handler::getRecentReviews)
+                      .GET("/aggregates/{movieInfoId}", aggregateHandler::getRatingAggregate)
+                      .POST("/aggregates/rebuild", aggregateHandler::rebuildRatingAggregates)
                       .PUT("/{id}", handler::updateReview)
                       .DELETE("/{id}", handler::deleteReview);
             })
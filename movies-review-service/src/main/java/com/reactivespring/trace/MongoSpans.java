@@ -0,0 +1,75 @@
+package com.reactivespring.trace;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceContext;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.data.mongodb.MongoCollectionUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Client spans around reactive Mongo calls. Sleuth only instruments the synchronous driver, so without
+ * these the time a request spends in Mongo does not show up in its trace. A call made outside a traced
+ * request (startup, scheduled jobs) or with tracing disabled runs unwrapped.
+ */
+public class MongoSpans {
+
+  private final Tracer tracer;
+
+  public MongoSpans(Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  public <T> Mono<T> mono(String command, Class<?> entity, Mono<T> call) {
+    if (tracer == null) {
+      return call;
+    }
+    return Mono.deferContextual(context -> {
+      var span = start(command, entity, context);
+      if (span == null) {
+        return call;
+      }
+      return call.contextWrite(ctx -> ctx.put(TraceContext.class, span.context()))
+              .doOnError(span::error)
+              .doFinally(signal -> span.end());
+    });
+  }
+
+  public <T> Flux<T> flux(String command, Class<?> entity, Flux<T> call) {
+    if (tracer == null) {
+      return call;
+    }
+    return Flux.deferContextual(context -> {
+      var span = start(command, entity, context);
+      if (span == null) {
+        return call;
+      }
+      return call.contextWrite(ctx -> ctx.put(TraceContext.class, span.context()))
+              .doOnError(span::error)
+              .doFinally(signal -> span.end());
+    });
+  }
+
+  private Span start(String command, Class<?> entity, ContextView context) {
+    // the web filter keeps the request span in the Reactor context, the thread local is only a fallback
+    var parent = context.getOrEmpty(TraceContext.class)
+            .map(TraceContext.class::cast)
+            .orElseGet(() -> {
+              var current = tracer.currentSpan();
+              return current == null ? null : current.context();
+            });
+    if (parent == null) {
+      return null;
+    }
+    var collection = MongoCollectionUtils.getPreferredCollectionName(entity);
+    return tracer.spanBuilder()
+            .setParent(parent)
+            .name(command + " " + collection)
+            .kind(Span.Kind.CLIENT)
+            .remoteServiceName("mongodb")
+            .tag("mongodb.command", command)
+            .tag("mongodb.collection", collection)
+            .start();
+  }
+}
@@ -0,0 +1,141 @@
+package com.reactivespring.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.reactivespring.domain.RatingAggregate;
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(SentQueries.Config.class)
+class RatingAggregateRepositoryIntgTest {
+
+  @Autowired
+  ReviewReactiveRepository reviewRepository;
+
+  @Autowired
+  RatingAggregateRepository repository;
+
+  @Autowired
+  ReactiveMongoTemplate mongoTemplate;
+
+  @Autowired
+  SentQueries sentQueries;
+
+  @BeforeEach
+  void setUp() {
+    var reviewsList = List.of(
+            new Review(null, 1L, "Awesome Movie", 9.0),
+            new Review(null, 1L, "Awesome Movie1", 9.0),
+            new Review(null, 2L, "Excellent Movie", 8.0));
+    reviewRepository.saveAll(reviewsList).blockLast();
+    repository.rebuildAll().block();
+  }
+
+  @AfterEach
+  void tearDown() {
+    reviewRepository.deleteAll().block();
+    repository.deleteAll().block();
+  }
+
+  @Test
+  void removeRatings_removesTheAggregateOfTheLastRating() {
+    repository.removeRatings(2L, List.of(8.0)).block();
+
+    StepVerifier.create(repository.findById(2L))
+            .verifyComplete();
+  }
+
+  @Test
+  void removeRatings_findsTheRemainingExtremesThroughTheIndex() {
+    // removing the highest rating sends the two rating-sorted finds the movieInfoId_rating index is for
+    var plans = sentQueries.winningPlans(mongoTemplate, repository.removeRatings(1L, List.of(9.0)));
+
+    assertEquals(2, plans.size(), plans::toString);
+    ReviewReactiveRepositoryIntgTest.assertIndexed(plans);
+  }
+
+  @Test
+  void removeRatings_leavesTheShapeRebuildWrites() {
+    addReview(new Review(null, 1L, "Meh", 4.0)).block();
+    var low = reviewRepository.findReviewsByMovieInfoId(1L)
+            .filter(review -> review.getRating() == 4.0)
+            .blockFirst();
+    assertNotNull(low);
+    reviewRepository.delete(low).then(repository.removeRatings(1L, List.of(4.0))).block();
+
+    var incremental = repository.findById(1L).block();
+    assertNotNull(incremental);
+    assertEquals(Map.of("9", 2L), incremental.getHistogram());
+
+    repository.rebuild(1L).block();
+    assertEquals(incremental, repository.findById(1L).block());
+  }
+
+  @Test
+  void rebuildAll_removesAggregatesWithoutRatedReviews() {
+    repository.addRatings(3L, List.of(5.0)).block();
+
+    StepVerifier.create(repository.rebuildAll())
+            .expectNext(2L)
+            .verifyComplete();
+    StepVerifier.create(repository.findById(3L))
+            .verifyComplete();
+  }
+
+  @Test
+  void rebuildAll_keepsRatingsAddedWhileItRuns() {
+    // reviews for a new and an existing movie are added the way ReviewHandler does while rebuilds keep running;
+    // none of the rebuilds may delete or overwrite what the incremental updates counted. A review whose
+    // increment was still in flight when a rebuild scanned it may be counted twice until the next rebuild
+    var writes = Flux.range(0, 200)
+            .flatMap(i -> addReview(new Review(null, i % 2 == 0 ? 3L : 1L, "Review " + i, 7.0)), 8)
+            .then()
+            .cache();
+    var rebuilds = repository.rebuildAll()
+            .repeat()
+            .takeUntilOther(writes.then(Mono.delay(Duration.ofMillis(20))))
+            .then();
+
+    Mono.when(writes, rebuilds).block(Duration.ofSeconds(60));
+
+    var aggregates = aggregates(1L, 3L);
+    assertTrue(aggregates.get(1L).getCount() >= 102, aggregates::toString);
+    assertTrue(aggregates.get(3L).getCount() >= 100, aggregates::toString);
+
+    repository.rebuildAll().block();
+    aggregates = aggregates(1L, 3L);
+    assertEquals(102, aggregates.get(1L).getCount());
+    assertEquals(100, aggregates.get(3L).getCount());
+    assertEquals(Map.of("7", 100L, "9", 2L), aggregates.get(1L).getHistogram());
+  }
+
+  private Map<Long, RatingAggregate> aggregates(Long... movieInfoIds) {
+    var aggregates = repository.findAllById(List.of(movieInfoIds))
+            .collectMap(RatingAggregate::getMovieInfoId)
+            .block();
+    assertNotNull(aggregates);
+    return aggregates;
+  }
+
+  private Mono<Void> addReview(Review review) {
+    return reviewRepository.save(review)
+            .flatMap(saved -> repository.addRatings(saved.getMovieInfoId(), List.of(saved.getRating())));
+  }
+}
@@ -0,0 +1,83 @@
+package com.reactivespring.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.reactivespring.domain.Review;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.test.StepVerifier;
+import java.util.List;
+
+@DataMongoTest
+@ActiveProfiles("test")
+@Import(SentQueries.Config.class)
+class ReviewReactiveRepositoryIntgTest {
+
+  @Autowired
+  ReviewReactiveRepository repository;
+
+  @Autowired
+  ReactiveMongoTemplate mongoTemplate;
+
+  @Autowired
+  SentQueries sentQueries;
+
+  @BeforeEach
+  void setUp() {
+    var reviewsList = List.of(
+            new Review(null, 1L, "Awesome Movie", 9.0),
+            new Review(null, 1L, "Awesome Movie1", 9.0),
+            new Review(null, 2L, "Excellent Movie", 8.0));
+    repository.saveAll(reviewsList).blockLast();
+  }
+
+  @AfterEach
+  void tearDown() {
+    repository.deleteAll().block();
+  }
+
+  @Test
+  void findReviewsByMovieInfoId() {
+    StepVerifier.create(repository.findReviewsByMovieInfoId(1L))
+            .expectNextCount(2)
+            .verifyComplete();
+  }
+
+  @Test
+  void findReviewsByMovieInfoId_usesIndex() {
+    assertIndexed(sentQueries.winningPlans(mongoTemplate, repository.findReviewsByMovieInfoId(1L)));
+  }
+
+  // as getReviewsGroupedByMovie sends it
+  @Test
+  void findReviewsByMovieInfoIdIn_sortedByMovieInfoId_usesIndex() {
+    assertIndexed(sentQueries.winningPlans(mongoTemplate,
+            repository.findReviewsByMovieInfoIdIn(List.of(1L, 2L), Sort.by("movieInfoId"))));
+  }
+
+  // as getRecentReviews sends it
+  @Test
+  void findRecentReviewsByMovieInfoId_usesIndex() {
+    assertIndexed(sentQueries.winningPlans(mongoTemplate, repository.findReviewsByMovieInfoId(1L,
+            PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "reviewId")))));
+  }
+
+  static void assertIndexed(List<String> plans) {
+    assertFalse(plans.isEmpty(), "no find was sent");
+    plans.forEach(plan -> {
+      assertTrue(plan.contains("IXSCAN"), plan);
+      assertFalse(plan.contains("COLLSCAN"), plan);
+      // the index already yields any requested order, so no in-memory sort stage
+      assertFalse(plan.contains("\"SORT\""), plan);
+    });
+  }
+}
@@ -0,0 +1,72 @@
+package com.reactivespring.repository;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the find commands the driver sends, so a test explains exactly the query a repository method
+ * builds; a filter written out by hand in the test would keep passing after that query changed.
+ */
+class SentQueries implements CommandListener {
+
+  private static final JsonWriterSettings EXTENDED_JSON = JsonWriterSettings.builder()
+          .outputMode(JsonMode.EXTENDED)
+          .build();
+
+  private final List<BsonDocument> finds = new CopyOnWriteArrayList<>();
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    if (!event.getCommandName().equals("find")) {
+      return;
+    }
+    // the event's document is only valid during this call; the session, cluster time and target database
+    // are added per command by the driver and are not part of the query
+    var find = new BsonDocument();
+    event.getCommand().clone().forEach((name, value) -> {
+      if (!name.startsWith("$") && !name.equals("lsid")) {
+        find.append(name, value);
+      }
+    });
+    finds.add(find);
+  }
+
+  /**
+   * Runs the call and returns the winning plan of every find it sent, as JSON.
+   */
+  List<String> winningPlans(ReactiveMongoTemplate mongoTemplate, Publisher<?> call) {
+    finds.clear();
+    Flux.from(call).blockLast();
+    return Flux.fromIterable(List.copyOf(finds))
+            .concatMap(find -> mongoTemplate.executeCommand(new BsonDocument("explain", find).toJson(EXTENDED_JSON)))
+            .map(result -> result.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson())
+            .collectList()
+            .block();
+  }
+
+  @TestConfiguration
+  static class Config {
+
+    @Bean
+    SentQueries sentQueries() {
+      return new SentQueries();
+    }
+
+    @Bean
+    MongoClientSettingsBuilderCustomizer recordSentQueries(SentQueries sentQueries) {
+      return settings -> settings.addCommandListener(sentQueries);
+    }
+  }
+}
@@ -1,31 +1,62 @@
 package com.reactivespring.routes;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import brave.Span;
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import com.reactivespring.domain.MovieReviews;
+import com.reactivespring.domain.RatingAggregate;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewBulkReport;
+import com.reactivespring.repository.RatingAggregateRepository;
 import com.reactivespring.repository.ReviewReactiveRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @AutoConfigureWebTestClient
+@AutoConfigureMetrics
 public class ReviewsIntgTest {
 
   @Autowired
   WebTestClient webTestClient;
 
+  @Autowired
+  MeterRegistry meterRegistry;
+
   @Autowired
   ReviewReactiveRepository repository;
 
+  @Autowired
+  RatingAggregateRepository ratingAggregateRepository;
+
+  @Autowired
+  FinishedSpans finishedSpans;
+
   static String REVIEWS_URL = "/v1/reviews";
+  static String TRACE_ID = "463ac35c9f6413ad48485a3953bb6124";
 
   @BeforeEach
   void setUp() {
@@ -39,6 +70,7 @@ public class ReviewsIntgTest {
   @AfterEach
   void tearDown() {
     repository.deleteAll().block();
+    ratingAggregateRepository.deleteAll().block();
   }
 
   @Test
@@ -62,4 +94,240 @@ public class ReviewsIntgTest {
 
             });
   }
+
+  @Test
+  void addReviews() {
+
+    webTestClient
+            .post()
+            .uri(REVIEWS_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue("{\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}\n"
+                    + "{\"comment\":\"no movie\",\"rating\":-1.0}\n"
+                    + "{\"movieInfoId\":2,\"comment\":\"Excellent Movie\",\"rating\":8.0}\n")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(ReviewBulkReport.class)
+            .isEqualTo(new ReviewBulkReport(2, 1));
+
+    assertEquals(5L, repository.count().block());
+  }
+
+  @Test
+  void getReviews_forManyMovies() {
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "?movieInfoId=1&movieInfoId=2")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(Review.class)
+            .hasSize(3);
+  }
+
+  @Test
+  void getReviewsGroupedByMovie() {
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/grouped?movieInfoId=2,1,3")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(MovieReviews.class)
+            .consumeWith(listEntityExchangeResult -> {
+              var movieReviews = listEntityExchangeResult.getResponseBody();
+
+              assertNotNull(movieReviews);
+              assertEquals(2, movieReviews.size());
+              assertEquals(1L, movieReviews.get(0).getMovieInfoId());
+              assertEquals(2, movieReviews.get(0).getReviews().size());
+              assertEquals(2L, movieReviews.get(1).getMovieInfoId());
+            });
+  }
+
+  @Test
+  void getRecentReviews() {
+
+    var newest = addReview(new Review(null, 1L, "Newest", 7.0));
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/recent?movieInfoId=1&limit=2")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(Review.class)
+            .consumeWith(listEntityExchangeResult -> {
+              var reviews = listEntityExchangeResult.getResponseBody();
+
+              assertNotNull(reviews);
+              assertEquals(2, reviews.size());
+              assertEquals(newest.getReviewId(), reviews.get(0).getReviewId());
+            });
+  }
+
+  @Test
+  void ratingAggregate_maintainedIncrementally() {
+
+    var low = addReview(new Review(null, 3L, "Meh", 4.0));
+    addReview(new Review(null, 3L, "Good", 7.5));
+    var high = addReview(new Review(null, 3L, "Great", 9.0));
+
+    high.setRating(8.0);
+    webTestClient
+            .put()
+            .uri(REVIEWS_URL + "/{id}", high.getReviewId())
+            .bodyValue(high)
+            .exchange()
+            .expectStatus()
+            .isOk();
+    webTestClient
+            .delete()
+            .uri(REVIEWS_URL + "/{id}", low.getReviewId())
+            .exchange()
+            .expectStatus()
+            .isNoContent();
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/aggregates/{movieInfoId}", 3)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(RatingAggregate.class)
+            .consumeWith(ratingAggregateEntityExchangeResult -> {
+              var aggregate = ratingAggregateEntityExchangeResult.getResponseBody();
+
+              assertNotNull(aggregate);
+              assertEquals(2, aggregate.getCount());
+              assertEquals(7.75, aggregate.getMean());
+              assertEquals(7.5, aggregate.getMin());
+              assertEquals(8.0, aggregate.getMax());
+              assertFalse(aggregate.getHistogram().containsKey("4"));
+              assertEquals(1L, aggregate.getHistogram().get("7"));
+              assertEquals(1L, aggregate.getHistogram().get("8"));
+            });
+  }
+
+  @Test
+  void ratingAggregate_rebuild() {
+
+    webTestClient
+            .post()
+            .uri(REVIEWS_URL + "/aggregates/rebuild")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.rebuilt").isEqualTo(2);
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/aggregates/{movieInfoId}", 1)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.count").isEqualTo(2)
+            .jsonPath("$.mean").isEqualTo(9.0)
+            .jsonPath("$.histogram.9").isEqualTo(2);
+  }
+
+  private Review addReview(Review review) {
+    return webTestClient
+            .post()
+            .uri(REVIEWS_URL)
+            .bodyValue(review)
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectBody(Review.class)
+            .returnResult()
+            .getResponseBody();
+  }
+
+  @Test
+  void publishesRequestAndMongoMetrics() {
+    webTestClient.get()
+            .uri(REVIEWS_URL + "?movieInfoId=1")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful();
+
+    assertNotNull(meterRegistry.find("http.server.requests").tag("uri", "/v1/reviews").timer());
+    assertNotNull(meterRegistry.find("mongodb.driver.commands")
+            .tag("command", "find")
+            .tag("collection", "review")
+            .timer());
+
+    webTestClient.get()
+            .uri("/actuator/prometheus")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(String.class)
+            .value(scrape -> {
+              assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+              assertTrue(scrape.contains("mongodb_driver_commands_seconds_bucket{"));
+            });
+  }
+
+  @Test
+  void getReviews_tracesMongoAsChildOfTheRequest() {
+    webTestClient.get()
+            .uri(REVIEWS_URL + "?movieInfoId=1")
+            .header("X-B3-TraceId", TRACE_ID)
+            .header("X-B3-SpanId", "a2fb4a1d1a96d312")
+            .header("X-B3-Sampled", "1")
+            .exchange()
+            .expectStatus()
+            .is2xxSuccessful();
+
+    // Sleuth has no reactive Mongo instrumentation, the span comes from MongoSpans
+    var server = finishedSpans.await(span -> span.kind() == Span.Kind.SERVER);
+    var mongo = finishedSpans.await(span -> "review".equals(span.tag("mongodb.collection")));
+    assertEquals(server.id(), mongo.parentId());
+    assertEquals(Span.Kind.CLIENT, mongo.kind());
+    assertEquals("mongodb", mongo.remoteServiceName());
+    assertEquals("find", mongo.tag("mongodb.command"));
+  }
+
+  @TestConfiguration
+  static class FinishedSpansConfig {
+
+    @Bean
+    FinishedSpans finishedSpans() {
+      return new FinishedSpans();
+    }
+  }
+
+  // spans finished in this test's trace; the server span ends after the response is written, hence the wait
+  static class FinishedSpans extends SpanHandler {
+
+    private final List<MutableSpan> spans = new CopyOnWriteArrayList<>();
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+      if (cause == Cause.FINISHED && TRACE_ID.equals(span.traceId())) {
+        spans.add(span);
+      }
+      return true;
+    }
+
+    MutableSpan await(Predicate<MutableSpan> predicate) {
+      var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (System.nanoTime() < deadline) {
+        var match = spans.stream().filter(predicate).findFirst();
+        if (match.isPresent()) {
+          return match.get();
+        }
+        LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+      }
+      throw new AssertionError("no finished span matched, got " + spans);
+    }
+  }
 }
@@ -1,36 +1,62 @@
 package com.reactivespring.routes;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
 import static org.mockito.ArgumentMatchers.isA;
 import static org.mockito.Mockito.when;
 
+import com.reactivespring.domain.MovieReviews;
+import com.reactivespring.domain.RatingAggregate;
 import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewBulkReport;
 import com.reactivespring.exceptionhandler.GlobalErrorHandler;
+import com.reactivespring.handler.RatingAggregateHandler;
 import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.repository.RatingAggregateRepository;
 import com.reactivespring.repository.ReviewReactiveRepository;
 import com.reactivespring.router.ReviewRouter;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
-@WebFluxTest
-@ContextConfiguration(classes = {ReviewRouter.class, ReviewHandler.class, GlobalErrorHandler.class})
+@WebFluxTest(properties = {"reviews.bulk.batchSize=2", "reviews.bulk.maxWait=20ms", "reviews.bulk.concurrency=1"})
+@ContextConfiguration(classes = {ReviewRouter.class, ReviewHandler.class, RatingAggregateHandler.class,
+        GlobalErrorHandler.class})
 @AutoConfigureWebTestClient
 public class ReviewsUnitTest {
 
   @MockBean
   private ReviewReactiveRepository repository;
 
+  @MockBean
+  private RatingAggregateRepository ratingAggregateRepository;
+
   @Autowired
   WebTestClient webTestClient;
 
   static String REVIEWS_URL = "/v1/reviews";
 
+  @BeforeEach
+  void setUp() {
+    when(ratingAggregateRepository.addRatings(any(), any())).thenReturn(Mono.empty());
+    when(ratingAggregateRepository.removeRatings(any(), any())).thenReturn(Mono.empty());
+  }
+
   @Test
   void addReview() {
 
@@ -74,4 +100,155 @@ public class ReviewsUnitTest {
             .expectBody(String.class)
             .isEqualTo("rating.movieInfoId: must not be null, rating.negative : rating is negative and please pass a non-negative value");
   }
+
+  @Test
+  void addReviews() {
+
+    when(repository.insert(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<Review>>getArgument(0)));
+
+    webTestClient
+            .post()
+            .uri(REVIEWS_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .bodyValue("{\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}\n"
+                    + "{\"comment\":\"no movie\",\"rating\":-1.0}\n"
+                    + "{\"movieInfoId\":2,\"comment\":\"Excellent Movie\",\"rating\":8.0}\n")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(ReviewBulkReport.class)
+            .isEqualTo(new ReviewBulkReport(2, 1));
+  }
+
+  @Test
+  void addReviews_slowInsertsWhileTheImporterPauses() {
+
+    // every pause closes a batch while the only insert slot is still busy with the previous one
+    when(repository.insert(anyIterable()))
+            .thenAnswer(invocation -> Flux.fromIterable(invocation.<Iterable<Review>>getArgument(0))
+                    .delaySubscription(Duration.ofMillis(100)));
+
+    var reviews = Flux.range(1, 6)
+            .delayElements(Duration.ofMillis(40))
+            .map(i -> "{\"movieInfoId\":" + i + ",\"comment\":\"Awesome Movie\",\"rating\":9.0}\n");
+
+    webTestClient
+            .post()
+            .uri(REVIEWS_URL + "/bulk")
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(reviews, String.class)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(ReviewBulkReport.class)
+            .isEqualTo(new ReviewBulkReport(6, 0));
+  }
+
+  @Test
+  void getReviewsGroupedByMovie() {
+
+    when(repository.findReviewsByMovieInfoIdIn(List.of(1L, 2L), Sort.by("movieInfoId")))
+            .thenReturn(Flux.just(
+                    new Review("abc", 1L, "Awesome Movie", 9.0),
+                    new Review("def", 1L, "Awesome Movie1", 9.0),
+                    new Review("ghi", 2L, "Excellent Movie", 8.0)));
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/grouped?movieInfoId={ids}", "1,2")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(MovieReviews.class)
+            .consumeWith(listEntityExchangeResult -> {
+              var movieReviews = listEntityExchangeResult.getResponseBody();
+
+              assertNotNull(movieReviews);
+              assertEquals(2, movieReviews.size());
+              assertEquals(1L, movieReviews.get(0).getMovieInfoId());
+              assertEquals(2, movieReviews.get(0).getReviews().size());
+              assertEquals(2L, movieReviews.get(1).getMovieInfoId());
+              assertEquals(1, movieReviews.get(1).getReviews().size());
+            });
+  }
+
+  @Test
+  void getReviewsGroupedByMovie_validation() {
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/grouped")
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("movieInfoId query parameter must be present");
+  }
+
+  @Test
+  void getRatingAggregate() {
+
+    when(ratingAggregateRepository.findById(1L))
+            .thenReturn(Mono.just(new RatingAggregate(1L, 2, 17.0, 8.0, 9.0, Map.of("8", 1L, "9", 1L))));
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/aggregates/{movieInfoId}", 1)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.count").isEqualTo(2)
+            .jsonPath("$.mean").isEqualTo(8.5)
+            .jsonPath("$.histogram.9").isEqualTo(1);
+  }
+
+  @Test
+  void getRatingAggregate_notRated() {
+
+    when(ratingAggregateRepository.findById(3L)).thenReturn(Mono.empty());
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/aggregates/{movieInfoId}", 3)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody()
+            .jsonPath("$.count").isEqualTo(0)
+            .jsonPath("$.mean").doesNotExist();
+  }
+
+  @Test
+  void getRecentReviews() {
+
+    when(repository.findReviewsByMovieInfoId(1L, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "reviewId"))))
+            .thenReturn(Flux.just(
+                    new Review("def", 1L, "Awesome Movie1", 9.0),
+                    new Review("abc", 1L, "Awesome Movie", 9.0)));
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/recent?movieInfoId=1&limit=2")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(Review.class)
+            .hasSize(2);
+  }
+
+  @Test
+  void getRecentReviews_validation() {
+
+    webTestClient
+            .get()
+            .uri(REVIEWS_URL + "/recent?movieInfoId=1&limit=1000")
+            .exchange()
+            .expectStatus()
+            .isBadRequest()
+            .expectBody(String.class)
+            .isEqualTo("limit must be between 1 and 100");
+  }
 }
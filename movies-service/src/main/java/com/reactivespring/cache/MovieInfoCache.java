@@ -0,0 +1,63 @@
+package com.reactivespring.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import java.time.Duration;
+import java.util.function.Function;
+
+@Component
+public class MovieInfoCache {
+
+  private final boolean enabled;
+  private final AsyncCache<String, MovieInfo> movieInfos;
+  private final Cache<String, MoviesInfoClientException> notFound;
+
+  public MovieInfoCache(@Value("${cache.movieInfo.enabled}") boolean enabled,
+                        @Value("${cache.movieInfo.maximumSize}") long maximumSize,
+                        @Value("${cache.movieInfo.ttl}") Duration ttl,
+                        @Value("${cache.movieInfo.notFoundTtl}") Duration notFoundTtl,
+                        MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.movieInfos = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .<String, MovieInfo>buildAsync(), "movieInfo");
+    this.notFound = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(notFoundTtl)
+            .recordStats()
+            .<String, MoviesInfoClientException>build(), "movieInfoNotFound");
+  }
+
+  public Mono<MovieInfo> get(String movieId, Function<String, Mono<MovieInfo>> loader) {
+    if (!enabled) {
+      return loader.apply(movieId);
+    }
+    return Mono.deferContextual(context -> {
+      var notFoundException = notFound.getIfPresent(movieId);
+      if (notFoundException != null) {
+        return Mono.error(notFoundException);
+      }
+      // concurrent lookups of the same id share the in-flight load; it is subscribed outside this chain,
+      // so it gets the context of the caller that started it, which carries the trace span and sampling
+      var movieInfo = movieInfos.get(movieId, (key, executor) -> loader.apply(key).contextWrite(context).toFuture());
+      // subscribe to a dependent stage so a cancelled subscriber does not cancel the shared load
+      return Mono.fromCompletionStage(movieInfo.thenApply(Function.identity()))
+              .doOnError(MoviesInfoClientException.class, exception -> {
+                if (exception.getStatusCode() == HttpStatus.NOT_FOUND.value()) {
+                  notFound.put(movieId, exception);
+                }
+              });
+    });
+  }
+}
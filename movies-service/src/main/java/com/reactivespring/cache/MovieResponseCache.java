@@ -0,0 +1,142 @@
+package com.reactivespring.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learnreactiveprogramming.operators.KeyedCoalescer;
+import com.reactivespring.exception.DegradedResponseException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.util.ResilienceUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class MovieResponseCache {
+
+  private final MovieResponseCacheProperties properties;
+  private final Clock clock;
+  private final Map<String, Cache<String, Entry>> routeCaches = new ConcurrentHashMap<>();
+  private final KeyedCoalescer<String, Object> loads = new KeyedCoalescer<>();
+
+  @Autowired
+  public MovieResponseCache(MovieResponseCacheProperties properties) {
+    this(properties, Clock.systemUTC());
+  }
+
+  MovieResponseCache(MovieResponseCacheProperties properties, Clock clock) {
+    this.properties = properties;
+    this.clock = clock;
+  }
+
+  public <T> Mono<T> get(String route, String key, Supplier<Mono<T>> loader) {
+    var policy = properties.getRoutes().get(route);
+    if (!properties.isEnabled() || policy == null) {
+      return loader.get();
+    }
+    return Mono.deferContextual(context -> {
+      var cache = routeCache(route, policy);
+      var entry = cache.getIfPresent(key);
+      if (entry != null) {
+        var age = Duration.between(entry.storedAt, clock.instant());
+        if (age.compareTo(policy.getFresh()) < 0) {
+          return Mono.just(entry.<T>value());
+        }
+        if (age.compareTo(policy.getFresh().plus(policy.getStaleWhileRevalidate())) < 0) {
+          refresh(route, key, cache, loader, context);
+          return Mono.just(entry.<T>value());
+        }
+      }
+      var loaded = load(route, key, cache, loader, context);
+      var stale = staleIfError(entry, policy);
+      if (stale != null && !policy.getStaleIfSlow().isZero()) {
+        // the shared load is not cancelled by the timeout, it still replaces the entry when it completes
+        loaded = loaded.timeout(policy.getStaleIfSlow(), Mono.fromSupplier(() -> {
+          log.warn("Serving stale response for {} {}: no response within {}", route, key, policy.getStaleIfSlow());
+          return stale.<T>value();
+        }));
+      }
+      return loaded
+              .onErrorResume(MovieResponseCache::isServerError, exception -> {
+                var staleOnError = staleIfError(cache.getIfPresent(key), policy);
+                if (staleOnError == null) {
+                  return Mono.error(exception);
+                }
+                log.warn("Serving stale response for {} {}: {}", route, key, exception.getMessage());
+                return Mono.just(staleOnError.value());
+              });
+    });
+  }
+
+  /**
+   * Concurrent misses and refreshes of a key share one load, run with the context of the request that
+   * started it so it is traced as part of that request. The load keeps running when its callers cancel,
+   * and is forgotten once it terminates.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> Mono<T> load(String route, String key, Cache<String, Entry> cache, Supplier<Mono<T>> loader,
+                           ContextView context) {
+    return (Mono<T>) loads.get(route + ":" + key, loadKey -> Mono.defer(loader)
+            .doOnNext(value -> cache.put(key, new Entry(value, clock.instant())))
+            .contextWrite(context)
+            .cast(Object.class));
+  }
+
+  // a refresh of a key that is already loading joins that load instead of starting another one
+  private <T> void refresh(String route, String key, Cache<String, Entry> cache, Supplier<Mono<T>> loader,
+                           ContextView context) {
+    load(route, key, cache, loader, context)
+            .subscribe(value -> { },
+                    exception -> log.warn("Background refresh of {} {} failed: {}", route, key, exception.getMessage()));
+  }
+
+  private Entry staleIfError(Entry entry, MovieResponseCacheProperties.RoutePolicy policy) {
+    if (entry == null) {
+      return null;
+    }
+    var age = Duration.between(entry.storedAt, clock.instant());
+    return age.compareTo(policy.getFresh().plus(policy.getStaleIfError())) < 0 ? entry : null;
+  }
+
+  private Cache<String, Entry> routeCache(String route, MovieResponseCacheProperties.RoutePolicy policy) {
+    return routeCaches.computeIfAbsent(route, name -> Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(policy.retention())
+            .ticker(() -> clock.millis() * 1_000_000)
+            .build());
+  }
+
+  private static boolean isServerError(Throwable exception) {
+    return exception instanceof MoviesInfoServerException
+            || exception instanceof ReviewsServerException
+            || exception instanceof DegradedResponseException
+            || exception instanceof WebClientRequestException
+            || ResilienceUtil.isRejected(exception);
+  }
+
+  private static class Entry {
+
+    private final Object value;
+    private final Instant storedAt;
+
+    Entry(Object value, Instant storedAt) {
+      this.value = value;
+      this.storedAt = storedAt;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T value() {
+      return (T) value;
+    }
+  }
+}
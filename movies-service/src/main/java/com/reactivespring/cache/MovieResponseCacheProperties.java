@@ -0,0 +1,37 @@
+package com.reactivespring.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache.movie")
+public class MovieResponseCacheProperties {
+
+  private boolean enabled = true;
+  private long maximumSize = 10_000;
+  private Map<String, RoutePolicy> routes = new HashMap<>();
+
+  @Data
+  public static class RoutePolicy {
+
+    // served as-is while younger than this
+    private Duration fresh = Duration.ofSeconds(30);
+    // served immediately, and refreshed in the background, while younger than fresh + this
+    private Duration staleWhileRevalidate = Duration.ZERO;
+    // served when the downstream call fails, while younger than fresh + this
+    private Duration staleIfError = Duration.ZERO;
+    // how long a request waits on a load, retries included, before it is served an entry staleIfError
+    // allows; the load carries on and replaces the entry. Zero waits for the load to finish or fail
+    private Duration staleIfSlow = Duration.ZERO;
+
+    Duration retention() {
+      var stale = staleWhileRevalidate.compareTo(staleIfError) > 0 ? staleWhileRevalidate : staleIfError;
+      return fresh.plus(stale);
+    }
+  }
+}
@@ -1,33 +1,79 @@
 package com.reactivespring.client;
 
+import com.reactivespring.cache.MovieInfoCache;
+import com.reactivespring.config.HedgeProperties;
+import com.reactivespring.config.RetryProperties;
 import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.domain.MovieInfoBatchItem;
+import com.reactivespring.domain.MovieInfoBatchRequest;
 import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
+import com.reactivespring.trace.SignalTrace;
+import com.reactivespring.util.HedgedRequest;
+import com.reactivespring.util.RetryBudget;
 import com.reactivespring.util.RetryUtil;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 import java.time.Duration;
+import java.util.List;
 
 @Component
 @Slf4j
 public class MoviesInfoRestClient {
 
   private final WebClient webClient;
+  private final MovieInfoCache movieInfoCache;
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+  private final RetryBudget retryBudget;
+  private final Retry retrySpec;
+  private final HedgedRequest hedgedRequest;
+  private final SignalTrace signalTrace;
 
   @Value("${restClient.moviesInfoUrl}")
   private String movieInfoUrl;
 
-  public MoviesInfoRestClient(WebClient webClient) {
+  public MoviesInfoRestClient(@Qualifier("moviesInfoWebClient") WebClient webClient, MovieInfoCache movieInfoCache,
+                              CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+                              RetryProperties retryProperties, HedgeProperties hedgeProperties,
+                              MeterRegistry meterRegistry, SignalTrace signalTrace) {
     this.webClient = webClient;
+    this.movieInfoCache = movieInfoCache;
+    this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("moviesInfo");
+    this.bulkhead = bulkheadRegistry.bulkhead("moviesInfo");
+    this.retryBudget = new RetryBudget(retryProperties.getMoviesInfo().getBudget());
+    this.retrySpec = RetryUtil.retrySpec("moviesInfo", retryProperties.getMoviesInfo(), retryBudget, meterRegistry);
+    this.hedgedRequest = new HedgedRequest("moviesInfo", hedgeProperties.getMoviesInfo(), meterRegistry);
+    this.signalTrace = signalTrace;
   }
 
   public Mono<MovieInfo> retrieveMovieInfo(String movieId) {
+    return movieInfoCache.get(movieId, this::fetchMovieInfo);
+  }
+
+  private Mono<MovieInfo> fetchMovieInfo(String movieId) {
+    return signalTrace.trace(hedgedRequest.execute(() -> attemptMovieInfo(movieId))
+            .retryWhen(retrySpec)
+            .doOnSubscribe(subscription -> retryBudget.recordRequest()), "movies.client.moviesInfo");
+  }
+
+  private Mono<MovieInfo> attemptMovieInfo(String movieId) {
 
     var url = movieInfoUrl.concat("/{id}");
 
@@ -54,7 +100,39 @@ public class MoviesInfoRestClient {
                       )));
             })
             .bodyToMono(MovieInfo.class)
-            .retryWhen(RetryUtil.retrySpec())
-            .log();
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+            .transformDeferred(BulkheadOperator.of(bulkhead));
+  }
+
+  public Flux<MovieInfo> retrieveMovieInfos(List<String> movieIds) {
+
+    var url = movieInfoUrl.concat("/batch-get");
+
+    return webClient.post()
+            .uri(url)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .bodyValue(new MovieInfoBatchRequest(movieIds))
+            .retrieve()
+            .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
+              log.info("Status code is: {}", clientResponse.statusCode().value());
+              return clientResponse.bodyToMono(String.class)
+                      .flatMap(responseMessage -> Mono.error(new MoviesInfoClientException(
+                              responseMessage, clientResponse.statusCode().value()
+                      )));
+            })
+            .onStatus(HttpStatus::is5xxServerError, clientResponse -> {
+              log.info("Status code is: {}", clientResponse.statusCode().value());
+              return clientResponse.bodyToMono(String.class)
+                      .flatMap(responseMessage -> Mono.error(new MoviesInfoServerException(
+                              "Server exception in MoviesInfoService " + responseMessage
+                      )));
+            })
+            .bodyToFlux(MovieInfoBatchItem.class)
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+            .transformDeferred(BulkheadOperator.of(bulkhead))
+            .retryWhen(retrySpec)
+            .doOnSubscribe(subscription -> retryBudget.recordRequest())
+            .filter(MovieInfoBatchItem::isFound)
+            .map(MovieInfoBatchItem::getMovieInfo);
   }
 }
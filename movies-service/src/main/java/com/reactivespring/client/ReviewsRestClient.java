@@ -1,41 +1,90 @@
 package com.reactivespring.client;
 
+import com.reactivespring.config.RetryProperties;
+import com.reactivespring.domain.MovieReviews;
+import com.reactivespring.domain.RatingAggregate;
 import com.reactivespring.domain.Review;
 import com.reactivespring.exception.MoviesInfoClientException;
 import com.reactivespring.exception.MoviesInfoServerException;
 import com.reactivespring.exception.ReviewsClientException;
 import com.reactivespring.exception.ReviewsServerException;
+import com.reactivespring.trace.SignalTrace;
+import com.reactivespring.util.RetryBudget;
 import com.reactivespring.util.RetryUtil;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import java.util.List;
 
 @Component
 @Slf4j
 public class ReviewsRestClient {
 
   private WebClient webClient;
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+  private final RetryBudget retryBudget;
+  private final Retry retrySpec;
+  private final SignalTrace signalTrace;
 
-  public ReviewsRestClient(WebClient webClient) {
+  public ReviewsRestClient(@Qualifier("reviewsWebClient") WebClient webClient,
+                           CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry,
+                           RetryProperties retryProperties, MeterRegistry meterRegistry,
+                           SignalTrace signalTrace) {
     this.webClient = webClient;
+    this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("reviews");
+    this.bulkhead = bulkheadRegistry.bulkhead("reviews");
+    this.retryBudget = new RetryBudget(retryProperties.getReviews().getBudget());
+    this.retrySpec = RetryUtil.retrySpec("reviews", retryProperties.getReviews(), retryBudget, meterRegistry);
+    this.signalTrace = signalTrace;
   }
 
   @Value("${restClient.reviewsUrl}")
   private String reviewsUrl;
 
+  // URI templates (rather than pre-expanded URLs) keep the uri tag on http.client.requests low-cardinality
   public Flux<Review> retrieveReviews(String movieId) {
-    var url = UriComponentsBuilder.fromHttpUrl(reviewsUrl)
-            .queryParam("movieInfoId", movieId)
-            .buildAndExpand().toUriString();
+    return signalTrace.trace(guarded(retrieve(webClient.get()
+            .uri(reviewsUrl.concat("?movieInfoId={movieInfoId}"), movieId))
+            .bodyToFlux(Review.class)), "movies.client.reviews");
+  }
+
+  public Flux<MovieReviews> retrieveReviewsGroupedByMovie(List<String> movieIds) {
+    return guarded(retrieve(webClient.get()
+            .uri(reviewsUrl.concat("/grouped?movieInfoId={movieInfoIds}"), String.join(",", movieIds))
+            .accept(MediaType.APPLICATION_NDJSON))
+            .bodyToFlux(MovieReviews.class));
+  }
+
+  public Flux<Review> retrieveRecentReviews(String movieId, int limit) {
+    return guarded(retrieve(webClient.get()
+            .uri(reviewsUrl.concat("/recent?movieInfoId={movieInfoId}&limit={limit}"), movieId, limit))
+            .bodyToFlux(Review.class));
+  }
 
-    return webClient
-            .get()
-            .uri(url)
+  public Mono<RatingAggregate> retrieveRatingAggregate(String movieId) {
+    return guarded(retrieve(webClient.get()
+            .uri(reviewsUrl.concat("/aggregates/{movieInfoId}"), movieId))
+            .bodyToFlux(RatingAggregate.class))
+            .next();
+  }
+
+  private WebClient.ResponseSpec retrieve(WebClient.RequestHeadersSpec<?> request) {
+    return request
             .retrieve()
             .onStatus(HttpStatus::is4xxClientError, clientResponse -> {
               log.info("Status code is: {}", clientResponse.statusCode().value());
@@ -52,9 +101,14 @@ public class ReviewsRestClient {
                       .flatMap(responseMessage -> Mono.error(new ReviewsServerException(
                               "Server exception in ReviewsService " + responseMessage
                       )));
-            })
-            .bodyToFlux(Review.class)
-            .retryWhen(RetryUtil.retrySpec())
-            .log();
+            });
+  }
+
+  private <T> Flux<T> guarded(Flux<T> response) {
+    return response
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+            .transformDeferred(BulkheadOperator.of(bulkhead))
+            .retryWhen(retrySpec)
+            .doOnSubscribe(subscription -> retryBudget.recordRequest());
   }
 }
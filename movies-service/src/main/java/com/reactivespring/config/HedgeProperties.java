@@ -0,0 +1,27 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rest-client.hedge")
+public class HedgeProperties {
+
+  private Policy moviesInfo = new Policy();
+
+  @Data
+  public static class Policy {
+
+    private boolean enabled = false;
+    // the hedge is sent once the first attempt is slower than this latency percentile
+    private double percentile = 0.95;
+    private Duration minDelay = Duration.ofMillis(20);
+    // used until enough latencies have been recorded
+    private Duration initialDelay = Duration.ofMillis(200);
+    private long minSamples = 100;
+    private RetryProperties.Budget budget = new RetryProperties.Budget();
+  }
+}
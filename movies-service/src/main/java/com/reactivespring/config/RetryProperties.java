@@ -0,0 +1,33 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rest-client.retry")
+public class RetryProperties {
+
+  private Policy moviesInfo = new Policy();
+  private Policy reviews = new Policy();
+
+  @Data
+  public static class Policy {
+
+    private int maxRetries = 3;
+    private Duration minBackoff = Duration.ofMillis(100);
+    private Duration maxBackoff = Duration.ofSeconds(2);
+    private Duration maxRetryTime = Duration.ofSeconds(5);
+    private Budget budget = new Budget();
+  }
+
+  @Data
+  public static class Budget {
+
+    // tokens earned by every original request; a retry spends one token
+    private double ratio = 0.2;
+    private double maxTokens = 20;
+  }
+}
@@ -1,16 +1,67 @@
 package com.reactivespring.config;
 
 
+import com.reactivespring.trace.SignalTrace;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider moviesInfoConnectionProvider(HttpClientProperties properties) {
+    return connectionProvider("moviesInfo", properties.getMoviesInfo());
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider reviewsConnectionProvider(HttpClientProperties properties) {
+    return connectionProvider("reviews", properties.getReviews());
+  }
+
   @Bean
-  public WebClient webClient(WebClient.Builder builder) {
-    return builder.build();
+  public WebClient moviesInfoWebClient(WebClient.Builder builder, HttpClientProperties properties,
+                                       SignalTrace signalTrace) {
+    return webClient(builder, moviesInfoConnectionProvider(properties), properties.getMoviesInfo(), signalTrace);
+  }
+
+  @Bean
+  public WebClient reviewsWebClient(WebClient.Builder builder, HttpClientProperties properties,
+                                    SignalTrace signalTrace) {
+    return webClient(builder, reviewsConnectionProvider(properties), properties.getReviews(), signalTrace);
+  }
+
+  private ConnectionProvider connectionProvider(String name, HttpClientProperties.Downstream downstream) {
+    return ConnectionProvider.builder(name)
+            .maxConnections(downstream.getMaxConnections())
+            .pendingAcquireMaxCount(downstream.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(downstream.getPendingAcquireTimeout())
+            .maxIdleTime(downstream.getMaxIdleTime())
+            .maxLifeTime(downstream.getMaxLifeTime())
+            .evictInBackground(downstream.getEvictInBackground())
+            .metrics(true)
+            .build();
+  }
+
+  private WebClient webClient(WebClient.Builder builder, ConnectionProvider connectionProvider,
+                              HttpClientProperties.Downstream downstream, SignalTrace signalTrace) {
+    var httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) downstream.getConnectTimeout().toMillis())
+            .responseTimeout(downstream.getResponseTimeout())
+            .keepAlive(downstream.isKeepAlive());
+    if (downstream.isH2c()) {
+      // upgrade to HTTP/2 over cleartext, falling back to HTTP/1.1 when the backend declines
+      httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+    return builder.clone()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .filter(signalTrace.propagation())
+            .build();
   }
 
 }
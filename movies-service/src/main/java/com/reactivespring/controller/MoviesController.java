@@ -1,13 +1,33 @@
 package com.reactivespring.controller;
 
+import com.reactivespring.cache.MovieResponseCache;
 import com.reactivespring.client.MoviesInfoRestClient;
 import com.reactivespring.client.ReviewsRestClient;
 import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieReviews;
+import com.reactivespring.domain.MovieStreamEvent;
+import com.reactivespring.domain.MovieSummary;
+import com.reactivespring.domain.RatingAggregate;
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.DegradedResponseException;
+import com.reactivespring.exception.ReviewsClientException;
+import com.reactivespring.util.ResilienceUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/v1/movies")
@@ -15,22 +35,138 @@ public class MoviesController {
 
   private final MoviesInfoRestClient moviesInfoRestClient;
   private final ReviewsRestClient reviewsRestClient;
+  private final MovieResponseCache movieResponseCache;
 
-  public MoviesController(MoviesInfoRestClient moviesInfoRestClient, ReviewsRestClient reviewsRestClient) {
+  @Value("${movies.batch.size}")
+  private int batchSize;
+
+  @Value("${movies.batch.concurrency}")
+  private int batchConcurrency;
+
+  @Value("${movies.summary.defaultReviews}")
+  private int summaryDefaultReviews;
+
+  @Value("${movies.summary.maxReviews}")
+  private int summaryMaxReviews;
+
+  public MoviesController(MoviesInfoRestClient moviesInfoRestClient, ReviewsRestClient reviewsRestClient,
+                          MovieResponseCache movieResponseCache) {
     this.moviesInfoRestClient = moviesInfoRestClient;
     this.reviewsRestClient = reviewsRestClient;
+    this.movieResponseCache = movieResponseCache;
   }
 
   @GetMapping("/{id}")
   public Mono<Movie> retrieveMovieById(@PathVariable("id") String movieId) {
-    return moviesInfoRestClient.retrieveMovieInfo(movieId)
-            .flatMap(movieInfo -> {
-              var reviewsList =
+    return movieResponseCache.get("movieById", movieId, () -> aggregateMovie(movieId))
+            .onErrorResume(DegradedResponseException.class, ex -> Mono.just(ex.<Movie>getResponse()));
+  }
+
+  private Mono<Movie> aggregateMovie(String movieId) {
+    // both calls only depend on the movieId, so they are started together; zip cancels
+    // the reviews call as soon as the movie info call fails (e.g. with a 404)
+    return Mono.defer(() -> {
+      var degraded = new AtomicBoolean();
+      return Mono.zip(moviesInfoRestClient.retrieveMovieInfo(movieId),
                       reviewsRestClient.retrieveReviews(movieId)
+                              .onErrorResume(ResilienceUtil::isRejected, ex -> degrade(degraded, Flux.empty()))
+                              .collectList(),
+                      Movie::new)
+              .flatMap(movie -> failIfDegraded(movie, degraded));
+    });
+  }
+
+  @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<MovieStreamEvent> streamMovieById(@PathVariable("id") String movieId) {
+    // both calls start together; mergeSequential holds back at most a prefetch window of
+    // reviews until the movie info line is written, then relays reviews as the client demands them.
+    // A failed movie info lookup errors before the first line, so it still maps to a status code
+    return Flux.mergeSequential(
+            moviesInfoRestClient.retrieveMovieInfo(movieId).map(MovieStreamEvent::of),
+            reviewsRestClient.retrieveReviews(movieId)
+                    .onErrorResume(ResilienceUtil::isRejected, ex -> Flux.empty())
+                    .map(MovieStreamEvent::of));
+  }
+
+  @GetMapping("/{id}/summary")
+  public Mono<MovieSummary> retrieveMovieSummary(@PathVariable("id") String movieId,
+                                                 @RequestParam(value = "reviews", required = false) Integer reviews) {
+    var reviewCount = reviews == null ? summaryDefaultReviews : reviews;
+    if (reviewCount < 0 || reviewCount > summaryMaxReviews) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+              "reviews must be between 0 and " + summaryMaxReviews);
+    }
+    return movieResponseCache.get("movieSummary", movieId + ":" + reviewCount,
+                    () -> summarizeMovie(movieId, reviewCount))
+            .onErrorResume(DegradedResponseException.class, ex -> Mono.just(ex.<MovieSummary>getResponse()));
+  }
+
+  private Mono<MovieSummary> summarizeMovie(String movieId, int reviewCount) {
+    // the rating stats are precomputed and the review list is limited by movies-review-service,
+    // so the payload stays the same size however many reviews a movie has
+    return Mono.defer(() -> {
+      var degraded = new AtomicBoolean();
+      var recentReviews = reviewCount == 0
+              ? Mono.just(List.<Review>of())
+              : reviewsRestClient.retrieveRecentReviews(movieId, reviewCount)
+                      .onErrorResume(ResilienceUtil::isRejected, ex -> degrade(degraded, Flux.empty()))
                       .collectList();
+      return Mono.zip(moviesInfoRestClient.retrieveMovieInfo(movieId),
+                      reviewsRestClient.retrieveRatingAggregate(movieId)
+                              .onErrorResume(ResilienceUtil::isRejected, ex -> degrade(degraded, Mono.empty()))
+                              .defaultIfEmpty(new RatingAggregate()),
+                      recentReviews)
+              .map(results -> new MovieSummary(results.getT1(), results.getT2(), results.getT3()))
+              .flatMap(summary -> failIfDegraded(summary, degraded));
+    });
+  }
+
+  private static <T> T degrade(AtomicBoolean degraded, T fallback) {
+    degraded.set(true);
+    return fallback;
+  }
+
+  // a response built without a rejected reviews call fails the cached load, so the cache answers with a
+  // stale response if it has one and never stores the degraded one; the caller unwraps it otherwise
+  private static <T> Mono<T> failIfDegraded(T response, AtomicBoolean degraded) {
+    return degraded.get() ? Mono.error(new DegradedResponseException(response)) : Mono.just(response);
+  }
+
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<Movie> retrieveMoviesByIds(@RequestParam("ids") List<String> movieIds) {
+    // ids are resolved a page at a time; movies are emitted in the order they complete
+    return Flux.fromIterable(new LinkedHashSet<>(movieIds))
+            .buffer(batchSize)
+            .flatMap(this::retrieveMoviesPage, batchConcurrency);
+  }
+
+  private Flux<Movie> retrieveMoviesPage(List<String> movieIds) {
+    // reviews are keyed by numeric movieInfoId and the grouped call rejects the whole page on any other
+    // id, so only numeric ids are asked for; a movie without reviews still gets an empty list
+    var reviewMovieIds = movieIds.stream()
+            .filter(MoviesController::isReviewMovieId)
+            .collect(Collectors.toList());
+    var reviewsByMovieId = (reviewMovieIds.isEmpty()
+            ? Mono.just(Map.<String, List<Review>>of())
+            : reviewsRestClient.retrieveReviewsGroupedByMovie(reviewMovieIds)
+                    .collectMap(movieReviews -> String.valueOf(movieReviews.getMovieInfoId()), MovieReviews::getReviews)
+                    .onErrorResume(ex -> ResilienceUtil.isRejected(ex) || ex instanceof ReviewsClientException,
+                            ex -> Mono.just(Map.of())))
+            .cache();
+
+    // the first source only subscribes to the reviews call, so it runs alongside the movie info call
+    return Flux.merge(reviewsByMovieId.then(Mono.empty()),
+            moviesInfoRestClient.retrieveMovieInfos(movieIds)
+                    .flatMap(movieInfo -> reviewsByMovieId.map(reviews -> new Movie(movieInfo,
+                            reviews.getOrDefault(movieInfo.getMovieInfoId(), List.of())))));
+  }
 
-              return reviewsList
-                      .map(reviews -> new Movie(movieInfo, reviews));
-            });
+  private static boolean isReviewMovieId(String movieId) {
+    try {
+      Long.parseLong(movieId);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
   }
 }
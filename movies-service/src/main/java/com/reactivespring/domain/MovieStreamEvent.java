@@ -0,0 +1,25 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// one line of the NDJSON movie stream: the movie info first, then one line per review
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MovieStreamEvent {
+
+    private MovieInfo movieInfo;
+    private Review review;
+
+    public static MovieStreamEvent of(MovieInfo movieInfo) {
+        return new MovieStreamEvent(movieInfo, null);
+    }
+
+    public static MovieStreamEvent of(Review review) {
+        return new MovieStreamEvent(null, review);
+    }
+}
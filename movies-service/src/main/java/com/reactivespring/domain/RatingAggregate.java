@@ -0,0 +1,19 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingAggregate {
+
+    private Long movieInfoId;
+    private long count;
+    private Double mean;
+    private Double min;
+    private Double max;
+    private Map<String, Long> histogram;
+}
@@ -0,0 +1,17 @@
+package com.reactivespring.exception;
+
+// fails a cached load whose response was built without a rejected downstream call, so the response cache
+// prefers a stale response to it and never stores it; it is served only when there is nothing stale
+public class DegradedResponseException extends RuntimeException{
+    private final Object response;
+
+    public DegradedResponseException(Object response) {
+        super("Response degraded by a rejected downstream call", null, false, false);
+        this.response = response;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getResponse() {
+        return (T) response;
+    }
+}
@@ -1,11 +1,14 @@
 package com.reactivespring.globalerrorhandler;
 
 import com.reactivespring.exception.MoviesInfoClientException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ResponseStatusException;
 
 @ControllerAdvice
 @Slf4j
@@ -17,6 +20,18 @@ public class GlobalErrorHandler {
     return ResponseEntity.status(exception.getStatusCode()).body(exception.getMessage());
   }
 
+  @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+  public ResponseEntity<String> handleRejectedCall(RuntimeException exception) {
+    log.error("Exception caught in handleRejectedCall: {}", exception.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exception.getMessage());
+  }
+
+  @ExceptionHandler(ResponseStatusException.class)
+  public ResponseEntity<String> handleResponseStatusException(ResponseStatusException exception) {
+    log.error("Exception caught in handleResponseStatusException: {}", exception.getMessage());
+    return ResponseEntity.status(exception.getStatus()).body(exception.getReason());
+  }
+
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<String> handleRuntimeException(RuntimeException exception) {
     log.error("Exception caught in handleClientException: {}", exception.getMessage());
@@ -0,0 +1,85 @@
+package com.reactivespring.util;
+
+import com.reactivespring.config.HedgeProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class HedgedRequest {
+
+  private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final HedgeProperties.Policy policy;
+  private final RetryBudget budget;
+  private final Timer latency;
+  private final Counter hedgesSent;
+  private final Counter hedgesRejected;
+
+  private volatile Duration hedgeDelay;
+  private volatile long hedgeDelayComputedAt;
+
+  public HedgedRequest(String client, HedgeProperties.Policy policy, MeterRegistry meterRegistry) {
+    this.policy = policy;
+    this.budget = new RetryBudget(policy.getBudget());
+    this.latency = Timer.builder("movies.client.hedge.latency")
+            .tag("client", client)
+            .publishPercentiles(policy.getPercentile())
+            .register(meterRegistry);
+    this.hedgesSent = meterRegistry.counter("movies.client.hedges", "client", client, "outcome", "sent");
+    this.hedgesRejected = meterRegistry.counter("movies.client.hedges", "client", client, "outcome", "budget_exhausted");
+    this.hedgeDelay = policy.getInitialDelay();
+    this.hedgeDelayComputedAt = System.nanoTime();
+  }
+
+  public <T> Mono<T> execute(Supplier<Mono<T>> attempt) {
+    if (!policy.isEnabled()) {
+      return attempt.get();
+    }
+    return Mono.defer(() -> {
+      budget.recordRequest();
+      var hedge = Mono.delay(hedgeDelay())
+              .flatMap(tick -> {
+                if (!budget.tryAcquire()) {
+                  hedgesRejected.increment();
+                  return Mono.<T>never();
+                }
+                hedgesSent.increment();
+                return attempt.get();
+              });
+      // whichever attempt signals first wins and the other one is cancelled
+      return Mono.firstWithSignal(timed(attempt.get()), hedge);
+    });
+  }
+
+  // only the first attempt is timed, from the start of the request. When the hedge wins, the first attempt
+  // is recorded as it is cancelled, a lower bound of its latency, so a slow answer still counts towards the
+  // percentile instead of being replaced by the hedge's quicker one and pulling the hedge delay down
+  private <T> Mono<T> timed(Mono<T> attempt) {
+    return Mono.defer(() -> {
+      var start = System.nanoTime();
+      return attempt.doFinally(signalType -> {
+        if (signalType != SignalType.ON_ERROR) {
+          latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+      });
+    });
+  }
+
+  Duration hedgeDelay() {
+    var now = System.nanoTime();
+    if (now - hedgeDelayComputedAt > DELAY_REFRESH_NANOS && latency.count() >= policy.getMinSamples()) {
+      var percentiles = latency.takeSnapshot().percentileValues();
+      if (percentiles.length > 0) {
+        var delay = Duration.ofNanos((long) percentiles[0].value(TimeUnit.NANOSECONDS));
+        hedgeDelay = delay.compareTo(policy.getMinDelay()) > 0 ? delay : policy.getMinDelay();
+      }
+      hedgeDelayComputedAt = now;
+    }
+    return hedgeDelay;
+  }
+}
@@ -0,0 +1,12 @@
+package com.reactivespring.util;
+
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+
+public class ResilienceUtil {
+
+  public static boolean isRejected(Throwable ex) {
+    return ex instanceof CallNotPermittedException
+            || ex instanceof BulkheadFullException;
+  }
+}
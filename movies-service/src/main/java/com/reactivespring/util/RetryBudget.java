@@ -0,0 +1,28 @@
+package com.reactivespring.util;
+
+import com.reactivespring.config.RetryProperties;
+
+public class RetryBudget {
+
+  private final double ratio;
+  private final double maxTokens;
+  private double tokens;
+
+  public RetryBudget(RetryProperties.Budget budget) {
+    this.ratio = budget.getRatio();
+    this.maxTokens = budget.getMaxTokens();
+    this.tokens = budget.getMaxTokens();
+  }
+
+  public synchronized void recordRequest() {
+    tokens = Math.min(maxTokens, tokens + ratio);
+  }
+
+  public synchronized boolean tryAcquire() {
+    if (tokens < 1) {
+      return false;
+    }
+    tokens -= 1;
+    return true;
+  }
+}
@@ -1,19 +1,53 @@
 package com.reactivespring.util;
 
+import com.reactivespring.config.RetryProperties;
 import com.reactivespring.exception.MoviesInfoServerException;
 import com.reactivespring.exception.ReviewsServerException;
-import reactor.core.Exceptions;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
 import reactor.util.retry.Retry;
 import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class RetryUtil {
 
 
-  public static Retry retrySpec() {
-    return Retry.fixedDelay(3, Duration.ofSeconds(1))
-            .filter(ex -> ex instanceof MoviesInfoServerException
-                    || ex instanceof ReviewsServerException)
-            .onRetryExhaustedThrow((((retryBackoffSpec, retrySignal)
-                    -> Exceptions.propagate(retrySignal.failure()))));
+  public static Retry retrySpec(String client, RetryProperties.Policy policy, RetryBudget budget,
+                                MeterRegistry meterRegistry) {
+    // the companion is created per subscription, so the deadline covers all retries of one call
+    return Retry.from(retrySignals -> {
+      var deadline = System.nanoTime() + policy.getMaxRetryTime().toNanos();
+      return retrySignals.concatMap(retrySignal -> {
+        var failure = retrySignal.failure();
+        if (!(failure instanceof MoviesInfoServerException || failure instanceof ReviewsServerException)) {
+          return Mono.error(failure);
+        }
+        if (retrySignal.totalRetries() >= policy.getMaxRetries()) {
+          return countAndFail(meterRegistry, client, "exhausted", failure);
+        }
+        var backoff = fullJitterBackoff(policy, retrySignal.totalRetries());
+        if (System.nanoTime() + backoff.toNanos() > deadline) {
+          return countAndFail(meterRegistry, client, "timeout", failure);
+        }
+        if (!budget.tryAcquire()) {
+          return countAndFail(meterRegistry, client, "budget_exhausted", failure);
+        }
+        meterRegistry.counter("movies.client.retries", "client", client, "outcome", "retried").increment();
+        return Mono.delay(backoff);
+      });
+    });
+  }
+
+  static Duration fullJitterBackoff(RetryProperties.Policy policy, long retry) {
+    var minBackoff = policy.getMinBackoff().toMillis();
+    var maxBackoff = policy.getMaxBackoff().toMillis();
+    var ceiling = retry >= 30 ? maxBackoff : Math.min(maxBackoff, minBackoff << retry);
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+
+  private static Mono<Long> countAndFail(MeterRegistry meterRegistry, String client, String outcome,
+                                         Throwable failure) {
+    meterRegistry.counter("movies.client.retries", "client", client, "outcome", outcome).increment();
+    return Mono.error(failure);
   }
 }
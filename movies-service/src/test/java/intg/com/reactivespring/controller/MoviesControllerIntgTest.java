@@ -1,34 +1,61 @@
 package com.reactivespring.controller;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.github.tomakehurst.wiremock.client.WireMock;
+import com.reactivespring.cache.MovieResponseCacheProperties;
 import com.reactivespring.domain.Movie;
+import com.reactivespring.domain.MovieStreamEvent;
+import com.reactivespring.domain.MovieSummary;
+import com.reactivespring.trace.SignalTrace;
+import com.reactivespring.trace.SignalTraceEndpoint;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @ActiveProfiles("test")
 @AutoConfigureWebTestClient
+@AutoConfigureMetrics
 @AutoConfigureWireMock(port = 8084)
 @TestPropertySource(
         properties = {
                 "restClient.moviesInfoUrl=http://localhost:8084/v1/movieinfos",
-                "restClient.reviewsUrl=http://localhost:8084/v1/reviews"
+                "restClient.reviewsUrl=http://localhost:8084/v1/reviews",
+                "cache.movieInfo.enabled=false",
+                "cache.movie.enabled=false"
         }
 )
 public class MoviesControllerIntgTest {
@@ -36,6 +63,24 @@ public class MoviesControllerIntgTest {
         @Autowired
         WebTestClient webTestClient;
 
+        @Autowired
+        MeterRegistry meterRegistry;
+
+        @Autowired
+        CircuitBreakerRegistry circuitBreakerRegistry;
+
+        @Autowired
+        SignalTraceEndpoint signalTraceEndpoint;
+
+        @Autowired
+        MovieResponseCacheProperties movieResponseCacheProperties;
+
+        @BeforeEach
+        void setUp() {
+                WireMock.resetAllRequests();
+                circuitBreakerRegistry.getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+        }
+
         @Test
         void retrieveMovieById() {
                 var movieId = "abc";
@@ -154,4 +199,501 @@ public class MoviesControllerIntgTest {
 
                 WireMock.verify(4, getRequestedFor(urlPathMatching("/v1/reviews*")));
         }
+
+        @Test
+        void retrieveMovieById_callsDownstreamConcurrently() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")
+                                .withFixedDelay(1000)));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                                .withFixedDelay(1000)));
+
+                var start = System.nanoTime();
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody(Movie.class)
+                        .consumeWith(movieEntityExchangeResult -> {
+                                var movie = movieEntityExchangeResult.getResponseBody();
+                                assertEquals(2, Objects.requireNonNull(movie).getReviewList().size());
+                        });
+                var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+                // sequential calls would take at least 2 seconds
+                assertTrue(elapsed.compareTo(Duration.ofMillis(1800)) < 0, "took " + elapsed);
+        }
+
+        @Test
+        void retrieveMovieById_404_doesNotWaitForReviews() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withStatus(404)));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")
+                                .withFixedDelay(2000)));
+
+                var start = System.nanoTime();
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isNotFound();
+                var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+                assertTrue(elapsed.compareTo(Duration.ofMillis(1500)) < 0, "took " + elapsed);
+        }
+
+        @Test
+        void retrieveMoviesByIds() {
+                stubFor(post(urlEqualTo("/v1/movieinfos/batch-get"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/x-ndjson")
+                                .withBodyFile("movieinfos-batch.ndjson")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews/grouped"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/x-ndjson")
+                                .withBodyFile("reviews-grouped.ndjson")));
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies?ids={ids}", "1,2,3,1")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBodyList(Movie.class)
+                        .hasSize(2)
+                        .consumeWith(listEntityExchangeResult -> {
+                                var reviewCounts = Objects.requireNonNull(listEntityExchangeResult.getResponseBody())
+                                        .stream()
+                                        .collect(Collectors.toMap(movie -> movie.getMovieInfo().getMovieInfoId(),
+                                                movie -> movie.getReviewList().size()));
+                                assertEquals(Map.of("1", 2, "2", 0), reviewCounts);
+                        });
+
+                WireMock.verify(1, postRequestedFor(urlEqualTo("/v1/movieinfos/batch-get"))
+                        .withRequestBody(equalToJson("{\"ids\": [\"1\", \"2\", \"3\"]}")));
+                WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/reviews/grouped?movieInfoId=1%2C2%2C3")));
+                WireMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+        }
+
+        @Test
+        void retrieveMoviesByIds_nonNumericIds() {
+                stubFor(post(urlEqualTo("/v1/movieinfos/batch-get"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/x-ndjson")
+                                .withBodyFile("movieinfos-batch-mixed.ndjson")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews/grouped"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/x-ndjson")
+                                .withBodyFile("reviews-grouped.ndjson")));
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies?ids={ids}", "abc,1")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBodyList(Movie.class)
+                        .consumeWith(listEntityExchangeResult -> {
+                                var reviewCounts = Objects.requireNonNull(listEntityExchangeResult.getResponseBody())
+                                        .stream()
+                                        .collect(Collectors.toMap(movie -> movie.getMovieInfo().getMovieInfoId(),
+                                                movie -> movie.getReviewList().size()));
+                                assertEquals(Map.of("abc", 0, "1", 2), reviewCounts);
+                        });
+
+                // "abc" cannot have reviews, so it is left out of the grouped call instead of failing it
+                WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/reviews/grouped?movieInfoId=1")));
+        }
+
+        @Test
+        void retrieveMoviesByIds_groupedReviews4xx() {
+                stubFor(post(urlEqualTo("/v1/movieinfos/batch-get"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/x-ndjson")
+                                .withBodyFile("movieinfos-batch-mixed.ndjson")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews/grouped"))
+                        .willReturn(aResponse()
+                                .withStatus(400)
+                                .withBody("movieInfoId must be numeric")));
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies?ids={ids}", "abc,1")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBodyList(Movie.class)
+                        .hasSize(2)
+                        .consumeWith(listEntityExchangeResult -> Objects.requireNonNull(listEntityExchangeResult.getResponseBody())
+                                .forEach(movie -> assertTrue(movie.getReviewList().isEmpty())));
+        }
+
+        @Test
+        void retrieveMovieById_publishesConnectionPoolMetrics() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")));
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .exchange()
+                        .expectStatus().isOk();
+
+                for (var pool : List.of("moviesInfo", "reviews")) {
+                        for (var gauge : List.of("active", "idle", "pending", "total")) {
+                                assertNotNull(meterRegistry.find("reactor.netty.connection.provider." + gauge + ".connections")
+                                        .tag("name", pool)
+                                        .gauge(), pool + " " + gauge);
+                        }
+                }
+        }
+
+        @Test
+        void retrieveMovieById_reviewsCircuitOpen() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")));
+
+                circuitBreakerRegistry.circuitBreaker("reviews").transitionToOpenState();
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody(Movie.class)
+                        .consumeWith(movieEntityExchangeResult -> {
+                                var movie = movieEntityExchangeResult.getResponseBody();
+                                assertEquals(0, Objects.requireNonNull(movie).getReviewList().size());
+                                assertEquals("Batman Begins", movie.getMovieInfo().getName());
+                        });
+
+                WireMock.verify(0, getRequestedFor(urlPathMatching("/v1/reviews.*")));
+        }
+
+        @Test
+        void retrieveMovieById_reviewsCircuitOpen_servesStaleMovie() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")));
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")));
+
+                // every cached movie is past its fresh and revalidate windows, so each request loads it
+                var policy = movieResponseCacheProperties.getRoutes().get("movieById");
+                var fresh = policy.getFresh();
+                var staleWhileRevalidate = policy.getStaleWhileRevalidate();
+                policy.setFresh(Duration.ZERO);
+                policy.setStaleWhileRevalidate(Duration.ZERO);
+                movieResponseCacheProperties.setEnabled(true);
+                try {
+                        for (var reviewsCircuitOpen : List.of(false, true, true)) {
+                                if (reviewsCircuitOpen) {
+                                        circuitBreakerRegistry.circuitBreaker("reviews").transitionToOpenState();
+                                }
+                                webTestClient
+                                        .get()
+                                        .uri("/v1/movies/{id}", movieId)
+                                        .exchange()
+                                        .expectStatus().isOk()
+                                        .expectBody(Movie.class)
+                                        .consumeWith(movieEntityExchangeResult -> {
+                                                var movie = movieEntityExchangeResult.getResponseBody();
+                                                assertEquals(2, Objects.requireNonNull(movie).getReviewList().size());
+                                        });
+                        }
+                } finally {
+                        movieResponseCacheProperties.setEnabled(false);
+                        policy.setFresh(fresh);
+                        policy.setStaleWhileRevalidate(staleWhileRevalidate);
+                }
+
+                WireMock.verify(1, getRequestedFor(urlPathMatching("/v1/reviews.*")));
+                WireMock.verify(3, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+        }
+
+        @Test
+        void retrieveMovieById_moviesInfoCircuitOpen() {
+                var movieId = "abc";
+                circuitBreakerRegistry.circuitBreaker("moviesInfo").transitionToOpenState();
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .exchange()
+                        .expectStatus()
+                        .isEqualTo(503);
+
+                WireMock.verify(0, getRequestedFor(urlEqualTo("/v1/movieinfos" + "/" + movieId)));
+        }
+
+        @Test
+        void retrieveMovieSummary() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")));
+
+                stubFor(get(urlEqualTo("/v1/reviews/aggregates/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("rating-aggregate.json")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews/recent"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")));
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}/summary?reviews=2", movieId)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody(MovieSummary.class)
+                        .consumeWith(movieSummaryEntityExchangeResult -> {
+                                var summary = movieSummaryEntityExchangeResult.getResponseBody();
+                                assertNotNull(summary);
+                                assertEquals("Batman Begins", summary.getMovieInfo().getName());
+                                assertEquals(2, summary.getRatings().getCount());
+                                assertEquals(8.5, summary.getRatings().getMean());
+                                assertEquals(2, summary.getRecentReviews().size());
+                        });
+
+                // the limit is pushed down instead of fetching every review
+                WireMock.verify(1, getRequestedFor(urlEqualTo("/v1/reviews/recent?movieInfoId=" + movieId + "&limit=2")));
+                WireMock.verify(0, getRequestedFor(urlPathEqualTo("/v1/reviews")));
+        }
+
+        @Test
+        void retrieveMovieSummary_invalidReviewCount() {
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}/summary?reviews=500", "abc")
+                        .exchange()
+                        .expectStatus().isBadRequest();
+        }
+
+        @Test
+        void streamMovieById() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")));
+
+                var events = webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                        .returnResult(MovieStreamEvent.class)
+                        .getResponseBody();
+
+                StepVerifier.create(events)
+                        .assertNext(event -> assertEquals("Batman Begins", event.getMovieInfo().getName()))
+                        .assertNext(event -> assertEquals("Awesome Movie", event.getReview().getComment()))
+                        .assertNext(event -> assertEquals("Excellent Movie", event.getReview().getComment()))
+                        .verifyComplete();
+        }
+
+        @Test
+        void streamMovieById_404() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withStatus(404)));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")));
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .exchange()
+                        .expectStatus()
+                        .isNotFound();
+        }
+
+        @Test
+        void retrieveMovieById_publishesRequestMetrics() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")));
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .exchange()
+                        .expectStatus().isOk();
+
+                assertNotNull(meterRegistry.find("http.server.requests").tag("uri", "/v1/movies/{id}").timer());
+                // client timers are tagged with the URI template, not the expanded id
+                assertNotNull(meterRegistry.find("http.client.requests").tag("uri", "/v1/movieinfos/{id}").timer());
+                assertNotNull(meterRegistry.find("http.client.requests")
+                        .tag("uri", "/v1/reviews?movieInfoId={movieInfoId}").timer());
+                assertNotNull(meterRegistry.find("movies.client.hedge.latency").tag("client", "moviesInfo").timer());
+
+                webTestClient
+                        .get()
+                        .uri("/actuator/prometheus")
+                        .exchange()
+                        .expectStatus().isOk()
+                        .expectBody(String.class)
+                        .value(scrape -> {
+                                assertTrue(scrape.contains("http_server_requests_seconds_bucket{"), "server histogram");
+                                assertTrue(scrape.contains("le=\"0.05\""), "SLO bucket");
+                                assertTrue(scrape.contains("http_client_requests_seconds_count{"), "client timer");
+                                assertTrue(scrape.contains("reactor_netty_connection_provider_active_connections"), "pool gauges");
+                        });
+        }
+
+        @Test
+        void retrieveMovieById_propagatesTraceContext() {
+                var movieId = "abc";
+                var traceId = "463ac35c9f6413ad48485a3953bb6124";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")));
+
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .header("X-B3-TraceId", traceId)
+                        .header("X-B3-SpanId", "a2fb4a1d1a96d312")
+                        .header("X-B3-Sampled", "1")
+                        .exchange()
+                        .expectStatus().isOk();
+
+                var downstream = WireMock.findAll(getRequestedFor(urlPathMatching("/v1/.*")));
+                assertEquals(2, downstream.size());
+                downstream.forEach(request -> {
+                        // both hops join the caller's trace as children of this service's spans
+                        assertEquals(traceId, request.getHeader("X-B3-TraceId"), request.getUrl());
+                        assertNotNull(request.getHeader("X-B3-ParentSpanId"), request.getUrl());
+                        assertNotEquals("a2fb4a1d1a96d312", request.getHeader("X-B3-SpanId"), request.getUrl());
+                        assertEquals("1", request.getHeader("X-B3-Sampled"), request.getUrl());
+                });
+        }
+
+        @Test
+        void retrieveMovieById_signalTraceFollowsHeaderDownstream() {
+                var movieId = "abc";
+                stubFor(get(urlEqualTo("/v1/movieinfos" + "/" + movieId))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("movieinfo.json")));
+
+                stubFor(get(urlPathEqualTo("/v1/reviews"))
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", "application/json")
+                                .withBodyFile("reviews.json")));
+
+                // the header is ignored until tracing is switched on through the endpoint
+                webTestClient
+                        .get()
+                        .uri("/v1/movies/{id}", movieId)
+                        .header("X-Debug-Trace", "true")
+                        .exchange()
+                        .expectStatus().isOk();
+
+                assertEquals("HEADER", signalTraceEndpoint.update("header", null).get("mode").toString());
+                try {
+                        webTestClient
+                                .get()
+                                .uri("/v1/movies/{id}", movieId)
+                                .header("X-Debug-Trace", "true")
+                                .exchange()
+                                .expectStatus().isOk();
+
+                        webTestClient
+                                .get()
+                                .uri("/v1/movies/{id}", movieId)
+                                .exchange()
+                                .expectStatus().isOk();
+
+                        var downstream = WireMock.findAll(getRequestedFor(urlPathMatching("/v1/.*")));
+                        assertEquals(6, downstream.size());
+                        assertEquals(2, downstream.stream()
+                                .filter(request -> "true".equals(request.getHeader("X-Debug-Trace")))
+                                .count());
+                } finally {
+                        signalTraceEndpoint.update("off", null);
+                }
+        }
+
+        @Test
+        void signalTraceEndpoint_rejectsInvalidSampleRate() {
+                assertThrows(InvalidEndpointRequestException.class, () -> signalTraceEndpoint.update(null, 2.0));
+        }
+
+        @Test
+        void signalTraceEndpoint_isNotWebExposed() {
+                webTestClient
+                        .post()
+                        .uri("/actuator/signaltrace")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(Map.of("mode", "sampled", "sampleRate", 1.0))
+                        .exchange()
+                        .expectStatus().isNotFound();
+
+                assertEquals(SignalTrace.Mode.OFF, signalTraceEndpoint.settings().get("mode"));
+        }
 }
@@ -0,0 +1,124 @@
+package com.reactivespring.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.reactivespring.domain.MovieInfo;
+import com.reactivespring.exception.MoviesInfoClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+class MovieInfoCacheTest {
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  MovieInfoCache movieInfoCache = new MovieInfoCache(true, 100,
+          Duration.ofMinutes(10), Duration.ofMinutes(1), meterRegistry);
+
+  AtomicInteger loads = new AtomicInteger();
+
+  Mono<MovieInfo> load(String movieId) {
+    return Mono.fromCallable(() -> {
+      loads.incrementAndGet();
+      return new MovieInfo(movieId, "Batman Begins", 2005,
+              List.of("Christian Bale", "Michael Cane"), LocalDate.parse("2005-06-15"));
+    });
+  }
+
+  Mono<MovieInfo> notFound(String movieId) {
+    return Mono.defer(() -> {
+      loads.incrementAndGet();
+      return Mono.error(new MoviesInfoClientException("There is no MovieInfo available for the passed in id: "
+              + movieId, 404));
+    });
+  }
+
+  @Test
+  void get_cachesMovieInfo() {
+    StepVerifier.create(movieInfoCache.get("abc", this::load)
+                    .then(movieInfoCache.get("abc", this::load)))
+            .assertNext(movieInfo -> assertEquals("abc", movieInfo.getMovieInfoId()))
+            .verifyComplete();
+
+    assertEquals(1, loads.get());
+    assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "movieInfo").tag("result", "hit")
+            .functionCounter().count());
+    assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "movieInfo").tag("result", "miss")
+            .functionCounter().count());
+  }
+
+  @Test
+  void get_coalescesConcurrentLoads() {
+    var slowLoad = Mono.delay(Duration.ofMillis(200)).then(load("abc"));
+
+    StepVerifier.create(Flux.range(0, 10)
+                    .flatMap(i -> movieInfoCache.get("abc", movieId -> slowLoad)))
+            .expectNextCount(10)
+            .verifyComplete();
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void get_loadsWithTheCallersContext() {
+    Function<String, Mono<MovieInfo>> contextualLoad = movieId -> Mono.deferContextual(context ->
+            load(context.get("traceId")));
+
+    StepVerifier.create(movieInfoCache.get("abc", contextualLoad)
+                    .contextWrite(Context.of("traceId", "trace-1")))
+            .assertNext(movieInfo -> assertEquals("trace-1", movieInfo.getMovieInfoId()))
+            .verifyComplete();
+  }
+
+  @Test
+  void get_cachesNotFound() {
+    StepVerifier.create(movieInfoCache.get("def", this::notFound))
+            .expectError(MoviesInfoClientException.class)
+            .verify();
+
+    StepVerifier.create(movieInfoCache.get("def", this::notFound))
+            .expectErrorMessage("There is no MovieInfo available for the passed in id: def")
+            .verify();
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void get_doesNotCacheServerErrors() {
+    Mono<MovieInfo> failingLoad = Mono.defer(() -> {
+      loads.incrementAndGet();
+      return Mono.error(new RuntimeException("Server exception in MoviesInfoService"));
+    });
+
+    StepVerifier.create(movieInfoCache.get("abc", movieId -> failingLoad))
+            .expectError(RuntimeException.class)
+            .verify();
+
+    StepVerifier.create(movieInfoCache.get("abc", this::load))
+            .expectNextCount(1)
+            .verifyComplete();
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void get_disabled() {
+    var disabledCache = new MovieInfoCache(false, 100,
+            Duration.ofMinutes(10), Duration.ofMinutes(1), meterRegistry);
+
+    StepVerifier.create(disabledCache.get("abc", this::load)
+                    .then(disabledCache.get("abc", this::load)))
+            .expectNextCount(1)
+            .verifyComplete();
+
+    assertEquals(2, loads.get());
+  }
+}
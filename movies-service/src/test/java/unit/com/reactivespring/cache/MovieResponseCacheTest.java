@@ -0,0 +1,195 @@
+package com.reactivespring.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.ReviewsServerException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class MovieResponseCacheTest {
+
+  MutableClock clock = new MutableClock();
+  AtomicInteger loads = new AtomicInteger();
+  MovieResponseCache movieResponseCache;
+
+  @BeforeEach
+  void setUp() {
+    var policy = new MovieResponseCacheProperties.RoutePolicy();
+    policy.setFresh(Duration.ofSeconds(30));
+    policy.setStaleWhileRevalidate(Duration.ofMinutes(1));
+    policy.setStaleIfError(Duration.ofMinutes(10));
+    policy.setStaleIfSlow(Duration.ofMillis(100));
+
+    var properties = new MovieResponseCacheProperties();
+    properties.getRoutes().put("movieById", policy);
+    movieResponseCache = new MovieResponseCache(properties, clock);
+  }
+
+  Mono<String> load() {
+    return Mono.fromCallable(() -> "version" + loads.incrementAndGet());
+  }
+
+  Mono<String> get(Mono<String> loader) {
+    return movieResponseCache.get("movieById", "abc", () -> loader);
+  }
+
+  @Test
+  void get_fresh() {
+    StepVerifier.create(get(load()).then(get(load())))
+            .expectNext("version1")
+            .verifyComplete();
+
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void get_staleWhileRevalidate() {
+    get(load()).block();
+    clock.advance(Duration.ofSeconds(45));
+
+    StepVerifier.create(get(load()))
+            .expectNext("version1")
+            .verifyComplete();
+
+    // the background refresh has replaced the entry
+    StepVerifier.create(get(load()))
+            .expectNext("version2")
+            .verifyComplete();
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void get_staleWhileRevalidate_refreshesWithTheCallersContext() {
+    get(load()).block();
+    clock.advance(Duration.ofSeconds(45));
+
+    StepVerifier.create(get(Mono.deferContextual(context -> Mono.just(context.<String>get("traceId"))))
+                    .contextWrite(Context.of("traceId", "trace-1")))
+            .expectNext("version1")
+            .verifyComplete();
+
+    StepVerifier.create(get(load()))
+            .expectNext("trace-1")
+            .verifyComplete();
+  }
+
+  @Test
+  void get_expired() {
+    get(load()).block();
+    clock.advance(Duration.ofMinutes(2));
+
+    StepVerifier.create(get(load()))
+            .expectNext("version2")
+            .verifyComplete();
+  }
+
+  @Test
+  void get_expired_coalescesConcurrentLoads() {
+    get(load()).block();
+    clock.advance(Duration.ofMinutes(2));
+    var slowLoad = Mono.delay(Duration.ofMillis(50)).then(load());
+
+    StepVerifier.create(Flux.range(0, 10).flatMap(i -> get(slowLoad)))
+            .expectNext("version2", "version2", "version2", "version2", "version2",
+                    "version2", "version2", "version2", "version2", "version2")
+            .verifyComplete();
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void get_staleIfSlow() {
+    get(load()).block();
+    clock.advance(Duration.ofMinutes(5));
+
+    StepVerifier.create(get(Mono.delay(Duration.ofMillis(300)).then(load())))
+            .expectNext("version1")
+            .verifyComplete();
+
+    // the slow load was not cancelled with the request and has replaced the entry
+    StepVerifier.create(get(load()).delaySubscription(Duration.ofMillis(500)))
+            .expectNext("version2")
+            .verifyComplete();
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void get_staleIfSlow_withoutStaleEntryWaitsForTheLoad() {
+    StepVerifier.create(get(Mono.delay(Duration.ofMillis(300)).then(load())))
+            .expectNext("version1")
+            .verifyComplete();
+  }
+
+  @Test
+  void get_staleIfError() {
+    get(load()).block();
+    clock.advance(Duration.ofMinutes(5));
+
+    StepVerifier.create(get(Mono.error(new ReviewsServerException("Server exception in ReviewsService"))))
+            .expectNext("version1")
+            .verifyComplete();
+  }
+
+  @Test
+  void get_staleIfError_clientErrorIsNotMasked() {
+    get(load()).block();
+    clock.advance(Duration.ofMinutes(5));
+
+    StepVerifier.create(get(Mono.error(new MoviesInfoClientException("There is no MovieInfo available", 404))))
+            .expectError(MoviesInfoClientException.class)
+            .verify();
+  }
+
+  @Test
+  void get_staleIfError_windowElapsed() {
+    get(load()).block();
+    clock.advance(Duration.ofMinutes(11));
+
+    StepVerifier.create(get(Mono.error(new ReviewsServerException("Server exception in ReviewsService"))))
+            .expectError(ReviewsServerException.class)
+            .verify();
+  }
+
+  @Test
+  void get_unknownRoute() {
+    StepVerifier.create(movieResponseCache.get("other", "abc", this::load)
+                    .then(movieResponseCache.get("other", "abc", this::load)))
+            .expectNext("version2")
+            .verifyComplete();
+  }
+
+  static class MutableClock extends Clock {
+
+    private Instant instant = Instant.parse("2021-08-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
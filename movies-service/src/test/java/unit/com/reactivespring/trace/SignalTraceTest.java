@@ -0,0 +1,114 @@
+package com.reactivespring.trace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+class SignalTraceTest {
+
+  SignalTrace signalTrace = new SignalTrace("off", 0.0, "X-Debug-Trace");
+
+  MockServerHttpRequest plainRequest = MockServerHttpRequest.get("/v1/movies/abc").build();
+  MockServerHttpRequest tracedRequest = MockServerHttpRequest.get("/v1/movies/abc")
+          .header("X-Debug-Trace", "true").build();
+
+  @Test
+  void off_leavesChainUntouched() {
+    var flux = Flux.just(1, 2, 3);
+    var mono = Mono.just(1);
+
+    assertSame(flux, signalTrace.trace(flux, "test"));
+    assertSame(mono, signalTrace.trace(mono, "test"));
+    assertFalse(signalTrace.isTraced(tracedRequest));
+  }
+
+  @Test
+  void header_tracesOnlyRequestsWithHeader() {
+    signalTrace.update(SignalTrace.Mode.HEADER, 0.0);
+
+    assertTrue(signalTrace.isTraced(tracedRequest));
+    assertFalse(signalTrace.isTraced(plainRequest));
+  }
+
+  @Test
+  void sampled_tracesBySampleRate() {
+    signalTrace.update(SignalTrace.Mode.SAMPLED, 1.0);
+    assertTrue(signalTrace.isTraced(plainRequest));
+
+    signalTrace.update(SignalTrace.Mode.SAMPLED, 0.0);
+    assertFalse(signalTrace.isTraced(plainRequest));
+    assertTrue(signalTrace.isTraced(tracedRequest));
+  }
+
+  @Test
+  void filter_marksTracedRequestsInContext() {
+    signalTrace.update(SignalTrace.Mode.HEADER, 0.0);
+    var traced = new AtomicBoolean();
+
+    var filtered = signalTrace.filter(MockServerWebExchange.from(tracedRequest), exchange ->
+            Mono.deferContextual(context -> {
+              traced.set(context.getOrDefault(SignalTrace.CONTEXT_KEY, false));
+              return Mono.empty();
+            }));
+
+    StepVerifier.create(filtered).verifyComplete();
+    assertTrue(traced.get());
+  }
+
+  @Test
+  void trace_passesSignalsThrough() {
+    signalTrace.update(SignalTrace.Mode.HEADER, 0.0);
+
+    StepVerifier.create(signalTrace.trace(Flux.just(1, 2, 3), "test")
+                    .contextWrite(context -> context.put(SignalTrace.CONTEXT_KEY, true)))
+            .expectNext(1, 2, 3)
+            .verifyComplete();
+    StepVerifier.create(signalTrace.trace(Flux.just(1, 2, 3), "test"))
+            .expectNext(1, 2, 3)
+            .verifyComplete();
+  }
+
+  @Test
+  void propagation_forwardsHeaderOnlyForTracedRequestsWhileEnabled() {
+    var forwarded = new ArrayList<String>();
+    ExchangeFunction next = request -> {
+      forwarded.add(request.headers().getFirst("X-Debug-Trace"));
+      return Mono.just(ClientResponse.create(HttpStatus.OK).build());
+    };
+    var request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost/v1/movieinfos/abc")).build();
+    Supplier<Mono<ClientResponse>> tracedCall = () -> signalTrace.propagation().filter(request, next)
+            .contextWrite(context -> context.put(SignalTrace.CONTEXT_KEY, true));
+
+    StepVerifier.create(tracedCall.get()).expectNextCount(1).verifyComplete();
+    signalTrace.update(SignalTrace.Mode.HEADER, 0.0);
+    StepVerifier.create(signalTrace.propagation().filter(request, next)).expectNextCount(1).verifyComplete();
+    StepVerifier.create(tracedCall.get()).expectNextCount(1).verifyComplete();
+
+    assertEquals(Arrays.asList(null, null, "true"), forwarded);
+  }
+
+  @Test
+  void update_rejectsInvalidSettings() {
+    assertThrows(IllegalArgumentException.class, () -> signalTrace.update(SignalTrace.Mode.SAMPLED, 1.5));
+    assertThrows(IllegalArgumentException.class, () -> SignalTrace.parseMode("verbose"));
+  }
+}
@@ -0,0 +1,124 @@
+package com.reactivespring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.reactivespring.config.HedgeProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class HedgedRequestTest {
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  AtomicInteger attempts = new AtomicInteger();
+  AtomicBoolean firstAttemptCancelled = new AtomicBoolean();
+
+  HedgeProperties.Policy policy() {
+    var policy = new HedgeProperties.Policy();
+    policy.setEnabled(true);
+    policy.setInitialDelay(Duration.ofMillis(50));
+    return policy;
+  }
+
+  // the first attempt is slow, every later attempt answers right away
+  Mono<String> attempt() {
+    return Mono.defer(() -> {
+      var attempt = attempts.incrementAndGet();
+      if (attempt == 1) {
+        return Mono.delay(Duration.ofSeconds(1))
+                .map(tick -> "attempt1")
+                .doOnCancel(() -> firstAttemptCancelled.set(true));
+      }
+      return Mono.just("attempt" + attempt);
+    });
+  }
+
+  double hedges(String outcome) {
+    return meterRegistry.get("movies.client.hedges").tag("outcome", outcome).counter().count();
+  }
+
+  @Test
+  void execute_hedgesSlowAttempt() {
+    var hedgedRequest = new HedgedRequest("moviesInfo", policy(), meterRegistry);
+
+    StepVerifier.create(hedgedRequest.execute(this::attempt))
+            .expectNext("attempt2")
+            .verifyComplete();
+
+    assertEquals(2, attempts.get());
+    assertTrue(firstAttemptCancelled.get());
+    assertEquals(1, hedges("sent"));
+  }
+
+  @Test
+  void execute_recordsTheLosingAttemptUntilItIsCancelled() {
+    var hedgedRequest = new HedgedRequest("moviesInfo", policy(), meterRegistry);
+
+    StepVerifier.create(hedgedRequest.execute(this::attempt))
+            .expectNext("attempt2")
+            .verifyComplete();
+
+    // the hedge's own quick answer is not recorded in place of the slow first attempt
+    var latency = meterRegistry.get("movies.client.hedge.latency").timer();
+    assertEquals(1, latency.count());
+    assertTrue(latency.max(TimeUnit.MILLISECONDS) >= 50);
+  }
+
+  @Test
+  void execute_fastAttemptIsNotHedged() {
+    var hedgedRequest = new HedgedRequest("moviesInfo", policy(), meterRegistry);
+
+    StepVerifier.create(hedgedRequest.execute(() -> Mono.just("fast")))
+            .expectNext("fast")
+            .verifyComplete();
+
+    assertEquals(0, hedges("sent"));
+  }
+
+  @Test
+  void execute_budgetExhausted() {
+    var policy = policy();
+    policy.getBudget().setMaxTokens(0);
+    var hedgedRequest = new HedgedRequest("moviesInfo", policy, meterRegistry);
+
+    StepVerifier.create(hedgedRequest.execute(this::attempt))
+            .expectNext("attempt1")
+            .verifyComplete();
+
+    assertEquals(1, attempts.get());
+    assertEquals(1, hedges("budget_exhausted"));
+  }
+
+  @Test
+  void execute_errorIsNotHedged() {
+    var hedgedRequest = new HedgedRequest("moviesInfo", policy(), meterRegistry);
+
+    StepVerifier.create(hedgedRequest.execute(() -> Mono.defer(() -> {
+              attempts.incrementAndGet();
+              return Mono.error(new IllegalStateException("boom"));
+            })))
+            .expectErrorMessage("boom")
+            .verify();
+
+    assertEquals(1, attempts.get());
+  }
+
+  @Test
+  void execute_disabled() {
+    var policy = policy();
+    policy.setEnabled(false);
+    var hedgedRequest = new HedgedRequest("moviesInfo", policy, meterRegistry);
+
+    StepVerifier.create(hedgedRequest.execute(this::attempt))
+            .expectNext("attempt1")
+            .verifyComplete();
+
+    assertEquals(1, attempts.get());
+  }
+}
@@ -0,0 +1,116 @@
+package com.reactivespring.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.reactivespring.config.RetryProperties;
+import com.reactivespring.exception.MoviesInfoClientException;
+import com.reactivespring.exception.MoviesInfoServerException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RetryUtilTest {
+
+  SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  AtomicInteger attempts = new AtomicInteger();
+
+  RetryProperties.Policy policy() {
+    var policy = new RetryProperties.Policy();
+    policy.setMinBackoff(Duration.ofMillis(1));
+    policy.setMaxBackoff(Duration.ofMillis(10));
+    return policy;
+  }
+
+  Mono<String> failWith(RuntimeException exception) {
+    return Mono.defer(() -> {
+      attempts.incrementAndGet();
+      return Mono.error(exception);
+    });
+  }
+
+  double retries(String outcome) {
+    var counter = meterRegistry.find("movies.client.retries").tag("outcome", outcome).counter();
+    return counter == null ? 0 : counter.count();
+  }
+
+  @Test
+  void retrySpec_retriesServerErrors() {
+    var policy = policy();
+    var retrySpec = RetryUtil.retrySpec("moviesInfo", policy, new RetryBudget(policy.getBudget()), meterRegistry);
+
+    StepVerifier.create(failWith(new MoviesInfoServerException("MovieInfo Service Unavailable")).retryWhen(retrySpec))
+            .expectErrorMessage("MovieInfo Service Unavailable")
+            .verify();
+
+    assertEquals(4, attempts.get());
+    assertEquals(3, retries("retried"));
+    assertEquals(1, retries("exhausted"));
+  }
+
+  @Test
+  void retrySpec_doesNotRetryClientErrors() {
+    var policy = policy();
+    var retrySpec = RetryUtil.retrySpec("moviesInfo", policy, new RetryBudget(policy.getBudget()), meterRegistry);
+
+    StepVerifier.create(failWith(new MoviesInfoClientException("Not Found", 404)).retryWhen(retrySpec))
+            .expectError(MoviesInfoClientException.class)
+            .verify();
+
+    assertEquals(1, attempts.get());
+    assertEquals(0, retries("retried"));
+  }
+
+  @Test
+  void retrySpec_budgetExhausted() {
+    var policy = policy();
+    policy.getBudget().setMaxTokens(2);
+    policy.getBudget().setRatio(0.5);
+    var budget = new RetryBudget(policy.getBudget());
+    var retrySpec = RetryUtil.retrySpec("moviesInfo", policy, budget, meterRegistry);
+
+    StepVerifier.create(failWith(new MoviesInfoServerException("MovieInfo Service Unavailable")).retryWhen(retrySpec))
+            .expectError(MoviesInfoServerException.class)
+            .verify();
+    assertEquals(3, attempts.get());
+    assertEquals(1, retries("budget_exhausted"));
+
+    // two more requests earn back one retry
+    budget.recordRequest();
+    budget.recordRequest();
+    attempts.set(0);
+    StepVerifier.create(failWith(new MoviesInfoServerException("MovieInfo Service Unavailable")).retryWhen(retrySpec))
+            .expectError(MoviesInfoServerException.class)
+            .verify();
+    assertEquals(2, attempts.get());
+  }
+
+  @Test
+  void retrySpec_maxRetryTime() {
+    var policy = policy();
+    policy.setMinBackoff(Duration.ofMillis(200));
+    policy.setMaxBackoff(Duration.ofMillis(200));
+    policy.setMaxRetryTime(Duration.ZERO);
+    var retrySpec = RetryUtil.retrySpec("moviesInfo", policy, new RetryBudget(policy.getBudget()), meterRegistry);
+
+    StepVerifier.create(failWith(new MoviesInfoServerException("MovieInfo Service Unavailable")).retryWhen(retrySpec))
+            .expectError(MoviesInfoServerException.class)
+            .verify();
+
+    assertEquals(1, attempts.get());
+    assertEquals(1, retries("timeout"));
+  }
+
+  @Test
+  void fullJitterBackoff_isBoundedByExponentialCeiling() {
+    var policy = policy();
+    for (int i = 0; i < 100; i++) {
+      assertTrue(RetryUtil.fullJitterBackoff(policy, 0).toMillis() <= 1);
+      assertTrue(RetryUtil.fullJitterBackoff(policy, 2).toMillis() <= 4);
+      assertTrue(RetryUtil.fullJitterBackoff(policy, 10).toMillis() <= 10);
+    }
+  }
+}
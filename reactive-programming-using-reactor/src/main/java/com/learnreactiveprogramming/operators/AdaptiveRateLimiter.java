@@ -0,0 +1,115 @@
+package com.learnreactiveprogramming.operators;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * A rate limiter whose rate follows the dependency's health, additive increase / multiplicative
+ * decrease as in TCP congestion control.
+ *
+ * <p>Calls are paced to the current rate: each one reserves the next free slot and is delayed
+ * until then, or rejected with {@link RateLimitExceededException} if that is more than
+ * {@code maxWait} away. Every successful call raises the rate by {@code increase / rate}, about
+ * {@code increase} calls/s per second of healthy traffic; an overload error multiplies it by
+ * {@code backoff}, at most once per {@code cooldown} so one burst of failures counts once.
+ */
+public class AdaptiveRateLimiter {
+
+    private final double minRate;
+    private final double maxRate;
+    private final double increase;
+    private final double backoff;
+    private final long cooldownNanos;
+    private final long maxWaitNanos;
+    private final Predicate<Throwable> overload;
+    private final Scheduler scheduler;
+
+    // guarded by this
+    private double rate;
+    private long nextSlot;
+    private long lastDecrease;
+    private boolean decreased;
+
+    /**
+     * Grows by 1 call/s per second, halves at most once a second, and treats timeouts as overload.
+     */
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, Duration maxWait) {
+        this(initialRate, minRate, maxRate, 1.0, 0.5, Duration.ofSeconds(1), maxWait,
+                TimeoutException.class::isInstance, Schedulers.parallel());
+    }
+
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, double increase, double backoff,
+                               Duration cooldown, Duration maxWait, Predicate<Throwable> overload, Scheduler scheduler) {
+        if (minRate <= 0 || minRate > maxRate || initialRate < minRate || initialRate > maxRate) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected 0 < minRate <= initialRate <= maxRate: %s, %s, %s", minRate, initialRate, maxRate));
+        }
+        if (backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("backoff must be between 0 and 1: " + backoff);
+        }
+        this.rate = initialRate;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increase = increase;
+        this.backoff = backoff;
+        this.cooldownNanos = cooldown.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+        this.overload = overload;
+        this.scheduler = scheduler;
+        this.nextSlot = scheduler.now(TimeUnit.NANOSECONDS);
+    }
+
+    public <T> Mono<T> limit(Mono<T> call) {
+        return Mono.defer(() -> {
+            var wait = reserve();
+            if (wait < 0) {
+                return Mono.error(new RateLimitExceededException(getRate()));
+            }
+            var admitted = wait == 0 ? call : Mono.delay(Duration.ofNanos(wait), scheduler).then(call);
+            return admitted
+                    .doOnSuccess(value -> onSuccess())
+                    .doOnError(this::onError);
+        });
+    }
+
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    // the delay until the reserved slot, or -1 if it is further away than maxWait
+    private synchronized long reserve() {
+        var now = scheduler.now(TimeUnit.NANOSECONDS);
+        var slot = Math.max(now, nextSlot);
+        var wait = slot - now;
+        if (wait > maxWaitNanos) {
+            return -1;
+        }
+        nextSlot = slot + (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        return wait;
+    }
+
+    private synchronized void onSuccess() {
+        rate = Math.min(maxRate, rate + increase / rate);
+    }
+
+    private void onError(Throwable ex) {
+        if (!overload.test(ex)) {
+            return;
+        }
+        synchronized (this) {
+            var now = scheduler.now(TimeUnit.NANOSECONDS);
+            if (decreased && now - lastDecrease < cooldownNanos) {
+                return;
+            }
+            rate = Math.max(minRate, rate * backoff);
+            lastDecrease = now;
+            decreased = true;
+        }
+    }
+}
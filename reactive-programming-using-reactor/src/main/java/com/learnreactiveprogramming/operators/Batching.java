@@ -0,0 +1,268 @@
+package com.learnreactiveprogramming.operators;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Size and time windowed batching that honours backpressure.
+ *
+ * <p>{@code bufferTimeout} fails with an overflow error when its timer closes a batch that nobody
+ * has requested yet, which is exactly what happens behind a {@code flatMap} with bounded
+ * concurrency. Here a batch closed by the timer waits for demand instead, and upstream is never
+ * asked for more than two batches ahead, so a slow consumer bounds memory rather than failing.
+ */
+public final class Batching {
+
+    private Batching() {
+    }
+
+    /**
+     * Groups elements into lists of at most {@code maxSize}, closing a batch early once its first
+     * element has waited {@code maxWait}. The timer runs on {@link Schedulers#parallel()}.
+     */
+    public static <T> Flux<List<T>> buffer(Publisher<? extends T> source, int maxSize, Duration maxWait) {
+        return buffer(source, maxSize, maxWait, Schedulers.parallel());
+    }
+
+    public static <T> Flux<List<T>> buffer(Publisher<? extends T> source, int maxSize, Duration maxWait, Scheduler timer) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+        }
+        if (maxWait.isNegative() || maxWait.isZero()) {
+            throw new IllegalArgumentException("maxWait must be positive: " + maxWait);
+        }
+        return new BatchingFlux<>(source, maxSize, maxWait.toNanos(), timer);
+    }
+
+    static final class BatchingFlux<T> extends Flux<List<T>> {
+
+        private final Publisher<? extends T> source;
+        private final int maxSize;
+        private final long maxWaitNanos;
+        private final Scheduler timer;
+
+        BatchingFlux(Publisher<? extends T> source, int maxSize, long maxWaitNanos, Scheduler timer) {
+            this.source = source;
+            this.maxSize = maxSize;
+            this.maxWaitNanos = maxWaitNanos;
+            this.timer = timer;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super List<T>> actual) {
+            Flux.from(source).subscribe(new BatchingSubscriber<>(actual, maxSize, maxWaitNanos, timer));
+        }
+    }
+
+    /**
+     * Batches are built and queued under the subscriber's monitor; delivery to downstream is
+     * serialized by a work-in-progress counter so onNext, the timer and request can all drain.
+     */
+    static final class BatchingSubscriber<T> implements CoreSubscriber<T>, Subscription {
+
+        private final CoreSubscriber<? super List<T>> actual;
+        private final int maxSize;
+        private final long maxWaitNanos;
+        private final Scheduler timer;
+        private final AtomicInteger wip = new AtomicInteger();
+
+        // guarded by this
+        private final ArrayDeque<List<T>> ready = new ArrayDeque<>();
+        private List<T> current = new ArrayList<>();
+        private Disposable pendingTimer;
+        private long batchId;
+        private long requested;
+        private boolean done;
+        private Throwable error;
+
+        private Subscription upstream;
+        private volatile boolean stopped;
+
+        BatchingSubscriber(CoreSubscriber<? super List<T>> actual, int maxSize, long maxWaitNanos, Scheduler timer) {
+            this.actual = actual;
+            this.maxSize = maxSize;
+            this.maxWaitNanos = maxWaitNanos;
+            this.timer = timer;
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (Operators.validate(upstream, s)) {
+                upstream = s;
+                actual.onSubscribe(this);
+                // one batch being filled and one waiting for demand
+                s.request(2L * maxSize);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            synchronized (this) {
+                if (done) {
+                    Operators.onNextDropped(t, currentContext());
+                    return;
+                }
+                current.add(t);
+                if (current.size() >= maxSize) {
+                    closeCurrent();
+                } else if (current.size() == 1) {
+                    var id = batchId;
+                    try {
+                        pendingTimer = timer.schedule(() -> onTimeout(id), maxWaitNanos, TimeUnit.NANOSECONDS);
+                    } catch (RejectedExecutionException e) {
+                        upstream.cancel();
+                        done = true;
+                        error = Operators.onRejectedExecution(e, upstream, null, t, currentContext());
+                    }
+                }
+            }
+            drain();
+        }
+
+        private void onTimeout(long id) {
+            synchronized (this) {
+                if (id != batchId || current.isEmpty()) {
+                    return;
+                }
+                // this task is the pending timer, it must not dispose itself
+                pendingTimer = null;
+                closeCurrent();
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            synchronized (this) {
+                if (done) {
+                    Operators.onErrorDropped(t, currentContext());
+                    return;
+                }
+                done = true;
+                error = t;
+            }
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                if (!current.isEmpty()) {
+                    closeCurrent();
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                synchronized (this) {
+                    requested = Operators.addCap(requested, n);
+                }
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            upstream.cancel();
+            discard();
+        }
+
+        // guarded by this
+        private void closeCurrent() {
+            if (pendingTimer != null) {
+                pendingTimer.dispose();
+                pendingTimer = null;
+            }
+            ready.add(current);
+            current = new ArrayList<>();
+            batchId++;
+        }
+
+        private synchronized void discard() {
+            if (pendingTimer != null) {
+                pendingTimer.dispose();
+                pendingTimer = null;
+            }
+            ready.clear();
+            current.clear();
+            batchId++;
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            var missed = 1;
+            for (;;) {
+                for (;;) {
+                    if (stopped) {
+                        return;
+                    }
+                    List<T> batch;
+                    Throwable failure;
+                    boolean completed;
+                    synchronized (this) {
+                        failure = error;
+                        completed = done && ready.isEmpty() && current.isEmpty();
+                        batch = failure == null && requested > 0 ? ready.poll() : null;
+                        if (batch != null && requested != Long.MAX_VALUE) {
+                            requested--;
+                        }
+                    }
+                    if (failure != null) {
+                        stopped = true;
+                        discard();
+                        actual.onError(failure);
+                        return;
+                    }
+                    if (batch == null) {
+                        if (completed) {
+                            stopped = true;
+                            actual.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+                    actual.onNext(batch);
+                    // keep upstream exactly two batches' worth ahead of what has been delivered
+                    upstream.request(batch.size());
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+}
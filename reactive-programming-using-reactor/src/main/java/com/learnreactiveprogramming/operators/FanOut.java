@@ -0,0 +1,157 @@
+package com.learnreactiveprogramming.operators;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bounded-concurrency fan-out to a downstream dependency.
+ *
+ * <p>{@code flatMap(call, n)} bounds the calls of one request; a {@code FanOut} shared by all
+ * requests bounds the calls in flight to the dependency as a whole, so a burst of requests queues
+ * here instead of piling up on the dependency. Waiting calls are admitted in arrival order and a
+ * cancelled call gives its slot back whether it was waiting or running.
+ */
+public class FanOut {
+
+    private final int maxConcurrency;
+
+    // guarded by this
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private int available;
+
+    public FanOut(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.available = maxConcurrency;
+    }
+
+    /**
+     * Calls {@code call} for every input and emits the results in input order.
+     */
+    public <T, R> Flux<R> ordered(Publisher<T> inputs, Function<? super T, ? extends Mono<R>> call) {
+        return Flux.from(inputs).flatMapSequential(input -> limit(call.apply(input)), maxConcurrency);
+    }
+
+    /**
+     * Calls {@code call} for every input and emits the results as they complete.
+     */
+    public <T, R> Flux<R> unordered(Publisher<T> inputs, Function<? super T, ? extends Mono<R>> call) {
+        return Flux.from(inputs).flatMap(input -> limit(call.apply(input)), maxConcurrency);
+    }
+
+    /**
+     * Subscribes to {@code call} once a slot is free and frees it when the call terminates.
+     */
+    public <R> Mono<R> limit(Mono<R> call) {
+        return Mono.defer(() -> {
+            // fast path: a free slot means nobody is queued, so taking it keeps arrival order
+            var permit = tryAcquire();
+            if (permit != null) {
+                return call.doFinally(signal -> permit.release());
+            }
+            return acquire().flatMap(granted -> call.doFinally(signal -> granted.release()));
+        });
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Number of calls waiting for a slot.
+     */
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    private synchronized Permit tryAcquire() {
+        if (available == 0) {
+            return null;
+        }
+        available--;
+        return new Permit();
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.create(sink -> {
+            var waiter = new Waiter(sink);
+            // registered first: a granted permit that never reaches the caller must be returned
+            sink.onCancel(() -> cancel(waiter));
+            Permit permit = null;
+            synchronized (this) {
+                if (available > 0) {
+                    available--;
+                    permit = waiter.grant();
+                } else {
+                    waiters.add(waiter);
+                }
+            }
+            if (permit != null) {
+                sink.success(permit);
+            }
+        });
+    }
+
+    private void cancel(Waiter waiter) {
+        Permit permit;
+        synchronized (this) {
+            if (waiters.remove(waiter)) {
+                return;
+            }
+            permit = waiter.permit;
+        }
+        if (permit != null) {
+            permit.release();
+        }
+    }
+
+    private void handOver() {
+        Waiter next;
+        Permit permit;
+        synchronized (this) {
+            next = waiters.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+            permit = next.grant();
+        }
+        next.sink.success(permit);
+    }
+
+    private final class Waiter {
+
+        private final MonoSink<Permit> sink;
+        // guarded by FanOut.this
+        private Permit permit;
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+
+        Permit grant() {
+            permit = new Permit();
+            return permit;
+        }
+    }
+
+    // released from doFinally and possibly from a late cancel, only the first release counts
+    private final class Permit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                handOver();
+            }
+        }
+    }
+}
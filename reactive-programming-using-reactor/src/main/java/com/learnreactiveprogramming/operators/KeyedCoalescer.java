@@ -0,0 +1,43 @@
+package com.learnreactiveprogramming.operators;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Collapses concurrent requests for the same key into one call: the first caller starts the load,
+ * everyone arriving while it is in flight gets the same result. Nothing is kept once the load
+ * terminates, so this is request coalescing rather than a cache, and a failure is shared by the
+ * callers that were waiting but not remembered for the next one.
+ */
+public class KeyedCoalescer<K, V> {
+
+    private final Map<K, InFlight<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<V> get(K key, Function<? super K, ? extends Mono<V>> loader) {
+        return Mono.defer(() -> inFlight.computeIfAbsent(key, k -> load(k, loader)).result);
+    }
+
+    /**
+     * Number of loads currently in flight.
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private InFlight<V> load(K key, Function<? super K, ? extends Mono<V>> loader) {
+        var entry = new InFlight<V>();
+        // removed before the result is delivered, so a caller reacting to it starts a fresh load;
+        // cache() keeps the load running when one of the callers cancels, the others still want it
+        entry.result = Mono.defer(() -> loader.apply(key))
+                .doOnTerminate(() -> inFlight.remove(key, entry))
+                .cache();
+        return entry;
+    }
+
+    private static final class InFlight<V> {
+        private Mono<V> result;
+    }
+}
@@ -0,0 +1,15 @@
+package com.learnreactiveprogramming.operators;
+
+public class RateLimitExceededException extends RuntimeException {
+
+    private final double rate;
+
+    public RateLimitExceededException(double rate) {
+        super(String.format("Rate limit of %.1f calls/s exceeded", rate));
+        this.rate = rate;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+}
@@ -1,4 +0,0 @@
-package com.learnreactiveprogramming.service;
-
-public class FluxAndMonoGeneratorService {
-}
@@ -0,0 +1,111 @@
+package com.learnreactiveprogramming.operators;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveRateLimiterTest {
+
+    VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+    AdaptiveRateLimiter limiter(double initialRate, double minRate, double maxRate) {
+        return new AdaptiveRateLimiter(initialRate, minRate, maxRate, 1.0, 0.5, Duration.ofSeconds(1),
+                Duration.ofMillis(500), TimeoutException.class::isInstance, scheduler);
+    }
+
+    Mono<Long> now() {
+        return Mono.fromSupplier(() -> scheduler.now(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void limit_pacesCallsToTheRate() {
+        // maxRate == initialRate keeps the rate fixed
+        var limiter = limiter(10, 1, 10);
+
+        StepVerifier.create(Flux.merge(limiter.limit(now()), limiter.limit(now()), limiter.limit(now())))
+                .expectNext(0L)
+                .then(() -> scheduler.advanceTimeBy(Duration.ofMillis(100)))
+                .expectNext(100L)
+                .then(() -> scheduler.advanceTimeBy(Duration.ofMillis(100)))
+                .expectNext(200L)
+                .verifyComplete();
+    }
+
+    @Test
+    void limit_rejectsCallsThatWouldWaitTooLong() {
+        var limiter = limiter(2, 1, 2);
+
+        // slots at 0 and 500ms fit into maxWait, the one at 1s does not
+        StepVerifier.create(Flux.mergeDelayError(3, limiter.limit(now()), limiter.limit(now()), limiter.limit(now())))
+                .expectNext(0L)
+                .then(() -> scheduler.advanceTimeBy(Duration.ofMillis(500)))
+                .expectNext(500L)
+                .expectError(RateLimitExceededException.class)
+                .verify();
+    }
+
+    @Test
+    void limit_increasesRateAdditivelyOnSuccess() {
+        var limiter = limiter(10, 1, 100);
+
+        StepVerifier.create(limiter.limit(Mono.just(1)))
+                .expectNext(1)
+                .verifyComplete();
+
+        assertEquals(10.1, limiter.getRate(), 1e-9);
+    }
+
+    @Test
+    void limit_decreasesRateOncePerCooldownOnOverload() {
+        var limiter = limiter(40, 5, 100);
+        Mono<Integer> timingOut = Mono.error(new TimeoutException());
+
+        StepVerifier.create(limiter.limit(timingOut)).expectError(TimeoutException.class).verify();
+        assertEquals(20, limiter.getRate(), 1e-9);
+
+        // same burst, inside the cooldown
+        scheduler.advanceTimeBy(Duration.ofMillis(100));
+        StepVerifier.create(limiter.limit(timingOut)).expectError(TimeoutException.class).verify();
+        assertEquals(20, limiter.getRate(), 1e-9);
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        StepVerifier.create(limiter.limit(timingOut)).expectError(TimeoutException.class).verify();
+        assertEquals(10, limiter.getRate(), 1e-9);
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        StepVerifier.create(limiter.limit(timingOut)).expectError(TimeoutException.class).verify();
+        assertEquals(5, limiter.getRate(), 1e-9);
+
+        scheduler.advanceTimeBy(Duration.ofSeconds(1));
+        StepVerifier.create(limiter.limit(timingOut)).expectError(TimeoutException.class).verify();
+        assertEquals(5, limiter.getRate(), 1e-9);
+    }
+
+    @Test
+    void limit_ignoresErrorsThatAreNotOverload() {
+        var limiter = limiter(40, 5, 100);
+
+        StepVerifier.create(limiter.limit(Mono.error(new IllegalArgumentException("bad request"))))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        assertEquals(40, limiter.getRate(), 1e-9);
+    }
+
+    @Test
+    void constructor_rejectsInconsistentRates() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(10, 20, 100));
+        assertThrows(IllegalArgumentException.class, () -> limiter(10, 0, 100));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveRateLimiter(10, 1, 100, 1.0, 1.0,
+                Duration.ofSeconds(1), Duration.ofSeconds(1), ex -> true, scheduler));
+    }
+}
@@ -0,0 +1,110 @@
+package com.learnreactiveprogramming.operators;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchingTest {
+
+    @Test
+    void buffer_closesBatchesBySize() {
+        var batches = Batching.buffer(Flux.range(1, 10), 4, Duration.ofSeconds(1));
+
+        StepVerifier.create(batches)
+                .expectNext(List.of(1, 2, 3, 4), List.of(5, 6, 7, 8), List.of(9, 10))
+                .verifyComplete();
+    }
+
+    @Test
+    void buffer_closesBatchByTimeFromItsFirstElement() {
+        StepVerifier.withVirtualTime(() -> Batching.buffer(Flux.interval(Duration.ofMillis(100)).take(5), 10,
+                        Duration.ofMillis(250)))
+                .expectSubscription()
+                // first element at 100ms, so the batch closes at 350ms with the elements of 100, 200 and 300ms
+                .expectNoEvent(Duration.ofMillis(349))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(List.of(0L, 1L, 2L))
+                // the rest is flushed when the source completes at 500ms
+                .thenAwait(Duration.ofMillis(150))
+                .expectNext(List.of(3L, 4L))
+                .verifyComplete();
+    }
+
+    @Test
+    void buffer_holdsTimedOutBatchUntilRequested() {
+        var scheduler = VirtualTimeScheduler.create();
+        var source = Sinks.many().unicast().<Integer>onBackpressureBuffer();
+
+        StepVerifier.create(Batching.buffer(source.asFlux(), 10, Duration.ofMillis(100), scheduler), 0)
+                .then(() -> {
+                    source.tryEmitNext(1);
+                    source.tryEmitNext(2);
+                    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+                })
+                // bufferTimeout would fail here with an overflow error
+                .expectNoEvent(Duration.ofMillis(10))
+                .thenRequest(1)
+                .expectNext(List.of(1, 2))
+                .then(source::tryEmitComplete)
+                .verifyComplete();
+    }
+
+    @Test
+    void buffer_requestsAtMostTwoBatchesAhead() {
+        var requested = new AtomicLong();
+        var source = Flux.range(1, 100).doOnRequest(requested::addAndGet);
+
+        StepVerifier.create(Batching.buffer(source, 5, Duration.ofSeconds(1)), 0)
+                .expectSubscription()
+                .then(() -> assertEquals(10, requested.get()))
+                .thenRequest(1)
+                .expectNext(List.of(1, 2, 3, 4, 5))
+                .then(() -> assertEquals(15, requested.get()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void buffer_deliversEveryElementOnceBehindSlowConsumer() {
+        // real timer, a bursty producer and a consumer with bounded concurrency: the setup in which
+        // bufferTimeout overflows
+        var source = Flux.range(0, 20_000)
+                .concatMap(i -> i % 1_000 == 0 ? Mono.delay(Duration.ofMillis(5)).thenReturn(i) : Mono.just(i));
+        var batches = Batching.buffer(source, 64, Duration.ofMillis(1))
+                .flatMap(batch -> Mono.delay(Duration.ofMillis(1)).thenReturn(batch), 2)
+                .flatMapIterable(batch -> batch);
+
+        StepVerifier.create(batches.collectList())
+                .assertNext(elements -> {
+                    assertEquals(20_000, elements.size());
+                    assertEquals(20_000, new HashSet<>(elements).size());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void buffer_propagatesErrorWithoutFlushing() {
+        var source = Flux.just(1, 2).concatWith(Flux.error(new IllegalStateException("boom")));
+
+        StepVerifier.create(Batching.buffer(source, 10, Duration.ofSeconds(1)))
+                .expectErrorMessage("boom")
+                .verify();
+    }
+
+    @Test
+    void buffer_rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> Batching.buffer(Flux.empty(), 0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> Batching.buffer(Flux.empty(), 1, Duration.ZERO));
+    }
+}
@@ -0,0 +1,116 @@
+package com.learnreactiveprogramming.operators;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FanOutTest {
+
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+
+    // later inputs finish first, so ordering has to be restored
+    Mono<Integer> call(int input) {
+        return Mono.delay(Duration.ofMillis(100L - input))
+                .thenReturn(input * 10)
+                .doOnSubscribe(s -> maxActive.accumulateAndGet(active.incrementAndGet(), Math::max))
+                .doOnTerminate(active::decrementAndGet);
+    }
+
+    @Test
+    void ordered_emitsInInputOrderWithBoundedConcurrency() {
+        var fanOut = new FanOut(3);
+
+        StepVerifier.withVirtualTime(() -> fanOut.ordered(Flux.range(1, 10), this::call))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext(10, 20, 30, 40, 50, 60, 70, 80, 90, 100)
+                .verifyComplete();
+
+        assertEquals(3, maxActive.get());
+    }
+
+    @Test
+    void unordered_emitsAsCallsComplete() {
+        var fanOut = new FanOut(10);
+
+        StepVerifier.withVirtualTime(() -> fanOut.unordered(Flux.range(1, 3), this::call))
+                .thenAwait(Duration.ofSeconds(1))
+                .expectNext(30, 20, 10)
+                .verifyComplete();
+    }
+
+    @Test
+    void limit_boundsCallsAcrossFanOuts() {
+        var fanOut = new FanOut(2);
+
+        StepVerifier.withVirtualTime(() -> Flux.merge(
+                        fanOut.ordered(Flux.range(1, 5), this::call),
+                        fanOut.ordered(Flux.range(1, 5), this::call)))
+                .thenAwait(Duration.ofSeconds(2))
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertEquals(2, maxActive.get());
+        assertEquals(0, fanOut.getQueued());
+    }
+
+    @Test
+    void limit_cancelledCallsGiveTheirSlotBack() {
+        var fanOut = new FanOut(1);
+        var running = Sinks.<Integer>one();
+
+        // one call holds the slot, a second one waits for it, both get cancelled
+        StepVerifier.create(Flux.merge(fanOut.limit(running.asMono()), fanOut.limit(Mono.just(2))))
+                .then(() -> assertEquals(1, fanOut.getQueued()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(0, fanOut.getQueued());
+        StepVerifier.create(fanOut.limit(Mono.just(3)))
+                .expectNext(3)
+                .verifyComplete();
+    }
+
+    @Test
+    void limit_failedCallGivesItsSlotBack() {
+        var fanOut = new FanOut(1);
+
+        StepVerifier.create(fanOut.limit(Mono.error(new IllegalStateException("boom"))))
+                .expectErrorMessage("boom")
+                .verify();
+
+        StepVerifier.create(fanOut.limit(Mono.just(1)))
+                .expectNext(1)
+                .verifyComplete();
+    }
+
+    @Test
+    void limit_holdsTheBoundUnderConcurrentCallers() {
+        var fanOut = new FanOut(8);
+        var calls = Flux.range(0, 2_000)
+                .flatMap(i -> fanOut.limit(Mono.delay(Duration.ofMillis(i % 3))
+                        .thenReturn(i)
+                        .doOnSubscribe(s -> maxActive.accumulateAndGet(active.incrementAndGet(), Math::max))
+                        .doOnTerminate(active::decrementAndGet)), 64);
+
+        StepVerifier.create(calls)
+                .expectNextCount(2_000)
+                .verifyComplete();
+
+        assertEquals(8, maxActive.get());
+        assertEquals(0, fanOut.getQueued());
+    }
+
+    @Test
+    void constructor_rejectsNonPositiveConcurrency() {
+        assertThrows(IllegalArgumentException.class, () -> new FanOut(0));
+    }
+}
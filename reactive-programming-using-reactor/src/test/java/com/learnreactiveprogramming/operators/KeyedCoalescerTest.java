@@ -0,0 +1,90 @@
+package com.learnreactiveprogramming.operators;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KeyedCoalescerTest {
+
+    KeyedCoalescer<String, String> coalescer = new KeyedCoalescer<>();
+    AtomicInteger loads = new AtomicInteger();
+
+    Function<String, Mono<String>> slowLoader = key -> {
+        loads.incrementAndGet();
+        return Mono.delay(Duration.ofMillis(100)).thenReturn(key.toUpperCase());
+    };
+
+    @Test
+    void get_sharesInFlightLoadPerKey() {
+        StepVerifier.withVirtualTime(() -> Flux.merge(
+                        coalescer.get("a", slowLoader),
+                        coalescer.get("a", slowLoader),
+                        coalescer.get("b", slowLoader)))
+                .expectSubscription()
+                .then(() -> assertEquals(2, coalescer.inFlight()))
+                .thenAwait(Duration.ofMillis(100))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, coalescer.inFlight());
+    }
+
+    @Test
+    void get_loadsAgainOnceTheLoadHasCompleted() {
+        StepVerifier.withVirtualTime(() -> coalescer.get("a", slowLoader)
+                        .then(coalescer.get("a", slowLoader)))
+                .thenAwait(Duration.ofMillis(200))
+                .expectNext("A")
+                .verifyComplete();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_sharesFailureButRetriesAfterwards() {
+        var attempts = new AtomicInteger();
+        var gate = Sinks.<String>one();
+        Function<String, Mono<String>> failing = key -> attempts.incrementAndGet() == 1
+                ? gate.asMono()
+                : Mono.just("recovered");
+
+        var first = StepVerifier.create(coalescer.get("a", failing)).expectErrorMessage("boom").verifyLater();
+        var second = StepVerifier.create(coalescer.get("a", failing)).expectErrorMessage("boom").verifyLater();
+        gate.tryEmitError(new IllegalStateException("boom"));
+        first.verify();
+        second.verify();
+
+        StepVerifier.create(coalescer.get("a", failing))
+                .expectNext("recovered")
+                .verifyComplete();
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void get_cancelledCallerDoesNotCancelSharedLoad() {
+        var gate = Sinks.<String>one();
+        Function<String, Mono<String>> gated = key -> {
+            loads.incrementAndGet();
+            return gate.asMono();
+        };
+
+        StepVerifier.create(coalescer.get("a", gated))
+                .thenCancel()
+                .verify();
+
+        StepVerifier.create(coalescer.get("a", gated))
+                .then(() -> gate.tryEmitValue("A"))
+                .expectNext("A")
+                .verifyComplete();
+        assertEquals(1, loads.get());
+    }
+}
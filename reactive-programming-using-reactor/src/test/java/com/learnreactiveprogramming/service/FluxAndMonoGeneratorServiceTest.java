@@ -1,7 +0,0 @@
-package com.learnreactiveprogramming.service;
-
-import static org.junit.jupiter.api.Assertions.*;
-
-class FluxAndMonoGeneratorServiceTest {
-
-}
\ No newline at end of file